@@ -0,0 +1,47 @@
+package net.clgd.ccemux.benchmarks;
+
+import java.util.Random;
+
+import net.clgd.ccemux.api.emulation.EmulatedTerminal;
+
+/**
+ * Helpers for building the state shared between benchmarks
+ */
+final class Fixtures {
+	private static final String HEX = "0123456789abcdef";
+
+	private Fixtures() {}
+
+	/**
+	 * Generates a random string of printable ASCII characters
+	 */
+	static String randomText(Random random, int length) {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) chars[i] = (char) (' ' + random.nextInt(95));
+		return new String(chars);
+	}
+
+	/**
+	 * Generates a random string of hexadecimal colour codes
+	 */
+	static String randomColours(Random random, int length) {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) chars[i] = HEX.charAt(random.nextInt(16));
+		return new String(chars);
+	}
+
+	/**
+	 * Creates a terminal filled with random text and colours
+	 */
+	static EmulatedTerminal randomTerminal(int width, int height, long seed) {
+		Random random = new Random(seed);
+		EmulatedTerminal terminal = new EmulatedTerminal(width, height);
+		for (int y = 0; y < height; y++) {
+			terminal.setCursorPos(0, y);
+			terminal.blit(randomText(random, width), randomColours(random, width), randomColours(random, width));
+		}
+		terminal.setCursorPos(0, 0);
+
+		return terminal;
+	}
+}
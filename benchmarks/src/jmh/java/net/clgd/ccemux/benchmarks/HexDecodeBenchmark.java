@@ -0,0 +1,64 @@
+package net.clgd.ccemux.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import dan200.computercraft.core.terminal.TextBuffer;
+import net.clgd.ccemux.api.Utils;
+
+/**
+ * Compares decoding a line of hexadecimal colour codes with the original
+ * string-based lookup against {@link Utils#base16ToInt}. The build runs this
+ * with {@code -prof gc}, to compare allocation rates: decoding a
+ * {@link TextBuffer}, as the renderers do, should allocate nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HexDecodeBenchmark {
+	private static final String BASE_16 = "0123456789abcdef";
+
+	@Param({ "51", "164" })
+	public int width;
+
+	private String line;
+	private TextBuffer buffer;
+	private byte[] decoded;
+
+	@Setup
+	public void setup() {
+		line = Fixtures.randomColours(new Random(0), width);
+		buffer = new TextBuffer(line);
+		decoded = new byte[width];
+	}
+
+	@Benchmark
+	public int indexOf() {
+		int sum = 0;
+		for (int i = 0; i < line.length(); i++) {
+			sum += BASE_16.indexOf(String.valueOf(line.charAt(i)).toLowerCase());
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int lookup() {
+		int sum = 0;
+		for (int i = 0; i < line.length(); i++) sum += Utils.base16ToInt(line.charAt(i));
+		return sum;
+	}
+
+	@Benchmark
+	public byte[] lookupLine() {
+		Utils.base16ToInt(line, decoded);
+		return decoded;
+	}
+
+	@Benchmark
+	public byte[] lookupTextBuffer() {
+		Utils.base16ToInt(buffer, decoded);
+		return decoded;
+	}
+}
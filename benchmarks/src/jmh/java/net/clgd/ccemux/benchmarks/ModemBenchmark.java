@@ -0,0 +1,125 @@
+package net.clgd.ccemux.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dan200.computercraft.api.filesystem.IMount;
+import dan200.computercraft.api.filesystem.IWritableMount;
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.api.peripheral.IComputerAccess;
+import net.clgd.ccemux.api.config.Group;
+import net.clgd.ccemux.config.LuaAdapter;
+import net.clgd.ccemux.plugins.builtin.peripherals.WirelessModemPeripheral;
+
+/**
+ * Measures broadcasting a message from one wireless modem to many others,
+ * scattered around the world with a subset listening on the channel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModemBenchmark {
+	private static final int CHANNEL = 1;
+
+	@Param({ "10", "100", "1000" })
+	public int modems;
+
+	private WirelessModemPeripheral[] peripherals;
+	private Access[] computers;
+
+	private final Object[] transmit = { CHANNEL, CHANNEL, "hello" };
+
+	@Setup
+	public void setup(Blackhole blackhole) throws LuaException {
+		Random random = new Random(0);
+		peripherals = new WirelessModemPeripheral[modems];
+		computers = new Access[modems];
+
+		for (int i = 0; i < modems; i++) {
+			WirelessModemPeripheral modem = new WirelessModemPeripheral();
+
+			Group group = new Group("modem");
+			modem.configSetup(group);
+			Map<String, Object> position = new HashMap<>();
+			position.put("posX", (double) random.nextInt(512));
+			position.put("posY", (double) random.nextInt(256));
+			position.put("posZ", (double) random.nextInt(512));
+			LuaAdapter.fromLua(group, position);
+
+			Access computer = new Access(i, blackhole);
+			modem.attach(computer);
+			if (i % 4 == 0) modem.callMethod(computer, null, 0, new Object[] { CHANNEL });
+
+			peripherals[i] = modem;
+			computers[i] = computer;
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (int i = 0; i < modems; i++) peripherals[i].detach(computers[i]);
+	}
+
+	@Benchmark
+	public Object[] transmit() throws LuaException {
+		Object[] result = peripherals[0].callMethod(computers[0], null, 4, transmit);
+		WirelessModemPeripheral.getNetwork().deliver();
+		return result;
+	}
+
+	/**
+	 * A computer which discards all queued events
+	 */
+	private static class Access implements IComputerAccess {
+		private final int id;
+		private final Blackhole blackhole;
+
+		Access(int id, Blackhole blackhole) {
+			this.id = id;
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public String mount(String desiredLocation, IMount mount) {
+			return null;
+		}
+
+		@Override
+		public String mount(String desiredLocation, IMount mount, String driveName) {
+			return null;
+		}
+
+		@Override
+		public String mountWritable(String desiredLocation, IWritableMount mount) {
+			return null;
+		}
+
+		@Override
+		public String mountWritable(String desiredLocation, IWritableMount mount, String driveName) {
+			return null;
+		}
+
+		@Override
+		public void unmount(String location) {}
+
+		@Override
+		public int getID() {
+			return id;
+		}
+
+		@Override
+		public void queueEvent(String event, Object[] arguments) {
+			blackhole.consume(arguments);
+		}
+
+		@Override
+		public String getAttachmentName() {
+			return "top";
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package net.clgd.ccemux.benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import dan200.computercraft.core.terminal.TextBuffer;
+import net.clgd.ccemux.api.emulation.EmulatedTerminal;
+import net.clgd.ccemux.api.rendering.PaletteAdapter;
+import net.clgd.ccemux.api.rendering.TerminalRasterizer;
+import net.clgd.ccemux.rendering.awt.AWTTerminalFont;
+
+/**
+ * Measures drawing a full frame of a terminal into an offscreen image, both
+ * with the shared software rasterizer and with per-cell {@link Graphics2D}
+ * calls as the AWT renderer used to.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBenchmark {
+	private static final int SCALE = 2;
+
+	@Param({ "51x19", "164x81" })
+	public String size;
+
+	private EmulatedTerminal terminal;
+	private PaletteAdapter<Color> palette;
+	private AWTTerminalFont font;
+
+	private int cellWidth, cellHeight, margin;
+
+	private TerminalRasterizer rasterizer;
+	private final BitSet allLines = new BitSet();
+
+	private BufferedImage image;
+
+	@Setup
+	public void setup() throws IOException {
+		String[] dimensions = size.split("x");
+		int width = Integer.parseInt(dimensions[0]);
+		int height = Integer.parseInt(dimensions[1]);
+
+		terminal = Fixtures.randomTerminal(width, height, 0);
+		palette = new PaletteAdapter<>(terminal.getPalette(), Color::new);
+		font = new AWTTerminalFont(RenderBenchmark.class.getResource("/img/hdfont.png"));
+
+		cellWidth = 6 * SCALE;
+		cellHeight = 9 * SCALE;
+		margin = SCALE;
+
+		image = new BufferedImage(width * cellWidth + margin * 2, height * cellHeight + margin * 2,
+			BufferedImage.TYPE_INT_RGB);
+		int[] framebuffer = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+		BufferedImage bitmap = font.getBitmap();
+		int[] fontPixels = bitmap.getRGB(0, 0, bitmap.getWidth(), bitmap.getHeight(), null, 0, bitmap.getWidth());
+		rasterizer = new TerminalRasterizer(font, fontPixels, bitmap.getWidth(), width, height, cellWidth,
+			cellHeight, margin, framebuffer);
+
+		allLines.set(0, height);
+	}
+
+	@Benchmark
+	public BufferedImage rasterizer() {
+		rasterizer.render(terminal, palette, allLines);
+		return image;
+	}
+
+	@Benchmark
+	public BufferedImage graphics() {
+		BufferedImage bitmap = font.getBitmap();
+		Graphics2D g = image.createGraphics();
+		try {
+			for (int y = 0; y < terminal.getHeight(); y++) {
+				TextBuffer text = terminal.getLine(y);
+				TextBuffer background = terminal.getBackgroundColourLine(y);
+
+				int dy = margin + y * cellHeight;
+				for (int x = 0; x < terminal.getWidth(); x++) {
+					int dx = margin + x * cellWidth;
+
+					g.setColor(palette.getColor(background.charAt(x)));
+					g.fillRect(dx, dy, cellWidth, cellHeight);
+
+					Rectangle r = font.getCharCoords(text.charAt(x));
+					g.drawImage(bitmap, dx, dy, dx + cellWidth, dy + cellHeight, r.x, r.y, r.x + r.width,
+						r.y + r.height, null);
+				}
+			}
+		} finally {
+			g.dispose();
+		}
+
+		return image;
+	}
+}
@@ -0,0 +1,103 @@
+package net.clgd.ccemux.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import net.clgd.ccemux.api.config.Group;
+import net.clgd.ccemux.api.emulation.EmulatedComputer;
+import net.clgd.ccemux.api.emulation.EmulatedTerminal;
+import net.clgd.ccemux.emulation.CCEmuX;
+import net.clgd.ccemux.emulation.EmulatedComputerImpl;
+import net.clgd.ccemux.init.UserConfig;
+import net.clgd.ccemux.plugins.builtin.TRoRPlugin;
+import net.clgd.ccemux.plugins.PluginManager;
+import net.clgd.ccemux.rendering.headless.HeadlessRenderer;
+import net.clgd.ccemux.rendering.tror.TRoRRenderer;
+
+/**
+ * Measures encoding terminal updates with the {@link TRoRRenderer}. Output is
+ * discarded, so this measures encoding and writer overhead rather than the
+ * cost of the terminal on the other end. Each invocation ends with a tick, so
+ * batched output is included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TRoRBenchmark {
+	private static final int WIDTH = 51, HEIGHT = 19;
+
+	@Param({ "false", "true" })
+	public boolean batch;
+
+	@Param({ "false", "true" })
+	public boolean binary;
+
+	private Path dataDir;
+	private PrintStream stdout;
+
+	private EmulatedTerminal terminal;
+	private TRoRRenderer renderer;
+
+	private String[] text, textColour, backgroundColour;
+
+	@Setup
+	public void setup() throws IOException {
+		stdout = System.out;
+		System.setOut(new PrintStream(new NullOutputStream()));
+
+		dataDir = Files.createTempDirectory("ccemux-bench");
+		UserConfig config = new UserConfig(dataDir);
+		CCEmuX emu = new CCEmuX(config, (c, cfg) -> new HeadlessRenderer(c), new PluginManager(config),
+			dataDir.toFile());
+
+		terminal = new EmulatedTerminal(WIDTH, HEIGHT);
+		EmulatedComputer computer = EmulatedComputerImpl.builder(emu, terminal).id(0).build();
+		TRoRPlugin.TRoRConfig rendererConfig = new TRoRPlugin.TRoRConfig(new Group("tror"));
+		rendererConfig.batch.set(batch);
+		rendererConfig.binary.set(binary);
+		renderer = new TRoRRenderer(computer, config, rendererConfig, null);
+
+		Random random = new Random(0);
+		text = new String[HEIGHT];
+		textColour = new String[HEIGHT];
+		backgroundColour = new String[HEIGHT];
+		for (int y = 0; y < HEIGHT; y++) {
+			text[y] = Fixtures.randomText(random, WIDTH);
+			textColour[y] = Fixtures.randomColours(random, WIDTH);
+			backgroundColour[y] = Fixtures.randomColours(random, WIDTH);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		renderer.dispose();
+		System.setOut(stdout);
+		FileUtils.deleteDirectory(dataDir.toFile());
+	}
+
+	@Benchmark
+	public EmulatedTerminal write() {
+		terminal.setCursorPos(0, 0);
+		terminal.write(text[0]);
+		renderer.onAdvance(0.05);
+		return terminal;
+	}
+
+	@Benchmark
+	public EmulatedTerminal fullFrame() {
+		for (int y = 0; y < HEIGHT; y++) {
+			terminal.setCursorPos(0, y);
+			terminal.blit(text[y], textColour[y], backgroundColour[y]);
+		}
+		renderer.onAdvance(0.05);
+		return terminal;
+	}
+}
@@ -0,0 +1,68 @@
+package net.clgd.ccemux.benchmarks;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import net.clgd.ccemux.api.emulation.EmulatedTerminal;
+
+/**
+ * Measures the cost of common terminal operations on an
+ * {@link EmulatedTerminal}, including listener dispatch and damage tracking.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TerminalBenchmark {
+	private static final int WIDTH = 51, HEIGHT = 19;
+
+	@Param({ "0", "1", "4" })
+	public int listeners;
+
+	private EmulatedTerminal terminal;
+	private final BitSet damage = new BitSet();
+
+	private String text, textColour, backgroundColour;
+	private int row = 0;
+
+	@Setup
+	public void setup() {
+		terminal = Fixtures.randomTerminal(WIDTH, HEIGHT, 0);
+		for (int i = 0; i < listeners; i++) terminal.addListener(new EmulatedTerminal.Listener() {});
+
+		Random random = new Random(1);
+		text = Fixtures.randomText(random, WIDTH);
+		textColour = Fixtures.randomColours(random, WIDTH);
+		backgroundColour = Fixtures.randomColours(random, WIDTH);
+	}
+
+	private void nextRow() {
+		row = (row + 1) % HEIGHT;
+		terminal.setCursorPos(0, row);
+	}
+
+	@Benchmark
+	public EmulatedTerminal write() {
+		nextRow();
+		terminal.write(text);
+		terminal.drainDamage(damage);
+		return terminal;
+	}
+
+	@Benchmark
+	public EmulatedTerminal blit() {
+		nextRow();
+		terminal.blit(text, textColour, backgroundColour);
+		terminal.drainDamage(damage);
+		return terminal;
+	}
+
+	@Benchmark
+	public EmulatedTerminal scroll() {
+		terminal.scroll(1);
+		terminal.drainDamage(damage);
+		return terminal;
+	}
+}
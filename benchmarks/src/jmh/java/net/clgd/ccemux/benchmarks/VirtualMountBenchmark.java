@@ -0,0 +1,77 @@
+package net.clgd.ccemux.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import net.clgd.ccemux.api.emulation.filesystem.VirtualDirectory;
+import net.clgd.ccemux.api.emulation.filesystem.VirtualFile;
+import net.clgd.ccemux.api.emulation.filesystem.VirtualMount;
+import net.clgd.ccemux.api.emulation.filesystem.VirtualMountEntry;
+
+/**
+ * Measures path resolution in a {@link VirtualMount} built from a deep tree,
+ * similar to a large ROM.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VirtualMountBenchmark {
+	private static final int FANOUT = 4;
+
+	@Param({ "4", "6" })
+	public int depth;
+
+	private VirtualMount mount;
+
+	private Path deepPath;
+	private String deepFile;
+	private String missingFile;
+
+	@Setup
+	public void setup() {
+		VirtualDirectory.Builder builder = new VirtualDirectory.Builder();
+		addTree(builder, "", depth);
+		mount = new VirtualMount(builder.build());
+
+		StringBuilder dir = new StringBuilder();
+		for (int i = 0; i < depth; i++) dir.append("dir").append(FANOUT - 1).append('/');
+
+		deepPath = Paths.get(dir + "file" + (FANOUT - 1) + ".lua");
+		deepFile = dir + "file" + (FANOUT - 1) + ".lua";
+		missingFile = dir + "missing.lua";
+	}
+
+	private static void addTree(VirtualDirectory.Builder builder, String prefix, int depth) {
+		for (int i = 0; i < FANOUT; i++) {
+			builder.addEntry(Paths.get(prefix + "file" + i + ".lua"), new VirtualFile("print('" + prefix + i + "')"));
+			if (depth > 0) addTree(builder, prefix + "dir" + i + "/", depth - 1);
+		}
+	}
+
+	@Benchmark
+	public VirtualMountEntry follow() {
+		return mount.follow(deepPath);
+	}
+
+	@Benchmark
+	public boolean exists() {
+		return mount.exists(deepFile);
+	}
+
+	@Benchmark
+	public boolean existsMissing() {
+		return mount.exists(missingFile);
+	}
+
+	@Benchmark
+	public int openForRead() throws IOException {
+		try (InputStream stream = mount.openForRead(deepFile)) {
+			return stream.read();
+		}
+	}
+}
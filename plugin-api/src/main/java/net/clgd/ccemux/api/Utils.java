@@ -1,9 +1,12 @@
 package net.clgd.ccemux.api;
 
 import java.lang.Character.UnicodeBlock;
+import java.util.Arrays;
 
 import javax.annotation.Nonnull;
 
+import dan200.computercraft.core.terminal.TextBuffer;
+
 /**
  * A set of general-purpose CC-related utilities
  */
@@ -19,6 +22,20 @@ public final class Utils {
 
 	private static final String BASE_16 = "0123456789abcdef";
 
+	/**
+	 * Maps ASCII characters to their hexadecimal value, or -1 if they are not
+	 * a hexadecimal digit
+	 */
+	private static final byte[] BASE_16_LOOKUP = new byte[128];
+
+	static {
+		Arrays.fill(BASE_16_LOOKUP, (byte) -1);
+		for (int i = 0; i < BASE_16.length(); i++) {
+			BASE_16_LOOKUP[BASE_16.charAt(i)] = (byte) i;
+			BASE_16_LOOKUP[Character.toUpperCase(BASE_16.charAt(i))] = (byte) i;
+		}
+	}
+
 	/**
 	 * Converts a single hexadecimal character to an int
 	 *
@@ -26,7 +43,43 @@ public final class Utils {
 	 * @return The associated int, or -1 if the character is invalid
 	 */
 	public static int base16ToInt(char c) {
-		return BASE_16.indexOf(String.valueOf(c).toLowerCase());
+		return c < BASE_16_LOOKUP.length ? BASE_16_LOOKUP[c] : -1;
+	}
+
+	/**
+	 * Converts a line of hexadecimal characters (such as a terminal's colour line)
+	 * to ints
+	 *
+	 * @param line The hexadecimal characters
+	 * @param out  The array to write the values to. If the line is longer than this,
+	 *             the remaining characters are ignored. Invalid characters are
+	 *             written as -1.
+	 * @see #base16ToInt(char)
+	 */
+	public static void base16ToInt(@Nonnull TextBuffer line, @Nonnull byte[] out) {
+		// Read the line's characters directly, so decoding does not allocate
+		base16ToInt(line.m_text, line.length(), out);
+	}
+
+	/**
+	 * Converts a string of hexadecimal characters to ints
+	 *
+	 * @param line The hexadecimal characters
+	 * @param out  The array to write the values to. If the string is longer than this,
+	 *             the remaining characters are ignored. Invalid characters are
+	 *             written as -1.
+	 * @see #base16ToInt(char)
+	 */
+	public static void base16ToInt(@Nonnull CharSequence line, @Nonnull byte[] out) {
+		int length = Math.min(line.length(), out.length);
+		for (int i = 0; i < length; i++) {
+			out[i] = (byte) base16ToInt(line.charAt(i));
+		}
+	}
+
+	private static void base16ToInt(char[] chars, int length, byte[] out) {
+		length = Math.min(length, out.length);
+		for (int i = 0; i < length; i++) out[i] = (byte) base16ToInt(chars[i]);
 	}
 
 	/**
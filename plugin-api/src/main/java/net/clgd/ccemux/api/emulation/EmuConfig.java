@@ -34,11 +34,45 @@ public abstract class EmuConfig extends Config {
 	public ConfigProperty<String> renderer = property("renderer", String.class, "AWT")
 		.setName("Renderer");
 
+	@Nonnull
+	public ConfigProperty<Integer> tickRate = property("tickRate", int.class, 20)
+		.setName("Tick rate")
+		.setDescription("The number of times per second computers are ticked. ComputerCraft expects this to be 20.");
+
+	@Nonnull
+	public ConfigProperty<Integer> maxTickCatchUp = property("maxTickCatchUp", int.class, 10)
+		.setName("Maximum tick catch-up")
+		.setDescription("The number of overdue ticks the emulator will run back to back when it falls behind. Any ticks beyond this are skipped.");
+
+	@Nonnull
+	public ConfigProperty<Integer> tickThreads = property("tickThreads", int.class, 1)
+		.setName("Tick thread count")
+		.setDescription("The number of threads used to tick computers. Set this higher than 1 to tick computers in parallel, which " +
+			"helps when running many computers at once. Changes take effect when the emulator is restarted.");
+
+	@Nonnull
+	public ConfigProperty<Double> hookBudget = property("hookBudget", double.class, 10.0)
+		.setName("Plugin hook time budget")
+		.setDescription("Plugin hooks which take longer than this many milliseconds are slow, and are reported when they are " +
+			"slow several times in a row. Set to 0 to disable this check.");
+
+	@Nonnull
+	public ConfigProperty<Boolean> disableSlowHooks = property("disableSlowHooks", boolean.class, false)
+		.setName("Disable slow plugin hooks")
+		.setDescription("Disable plugin hooks which are slow several times in a row, rather than only logging a warning. " +
+			"Hooks of the built-in plugins are never disabled. Disabled hooks can be enabled again with ccemux.enableHooks().");
+
 	@Nonnull
 	public ConfigProperty<Long> maxComputerCapacity = property("maxComputerCapacity", long.class, 2L * 1024 * 1024)
 		.setName("Computer space limit")
 		.setDescription("The disk space limit for computers in bytes");
 
+	@Nonnull
+	public ConfigProperty<String> computerBaseImage = property("computerBaseImage", String.class, "")
+		.setName("Computer base image")
+		.setDescription("A directory, relative to the data directory, whose files every computer starts with. Computers share " +
+			"this directory read-only and only store the files they change, so it is not copied for each computer. Leave empty to disable.");
+
 	@Nonnull
 	public ConfigProperty<Integer> maximumFilesOpen = property("maximumFilesOpen", int.class, 128)
 		.setName("Maximum files open per computer")
@@ -2,6 +2,7 @@ package net.clgd.ccemux.api.emulation;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -19,6 +20,30 @@ public abstract class EmulatedComputer extends Computer {
 		 * Called when the computer is ticked
 		 */
 		void onAdvance(double dt);
+
+		/**
+		 * Called during a tick, before {@link #onAdvance(double)}, when the
+		 * computer has finished shutting down or has started turning on.
+		 *
+		 * @param shutdown The new value of {@link EmulatedComputer#isShutdown()}
+		 */
+		default void onShutdownChanged(boolean shutdown) {}
+	}
+
+	/**
+	 * A listener for the progress of copying files into a computer
+	 *
+	 * @see #copyFilesAsync(Iterable, String, CopyProgress)
+	 */
+	@FunctionalInterface
+	public interface CopyProgress {
+		/**
+		 * Called after each block of data is copied
+		 *
+		 * @param copied The number of bytes copied so far
+		 * @param total  The total number of bytes being copied
+		 */
+		void onProgress(long copied, long total);
 	}
 
 	/**
@@ -96,6 +121,19 @@ public abstract class EmulatedComputer extends Computer {
 	 */
 	public abstract void copyFiles(@Nonnull Iterable<File> files, @Nonnull String location) throws IOException;
 
+	/**
+	 * Copies the given files into this computer's root mount on a background
+	 * thread, in the same way as {@link #copyFiles(Iterable, String)}.
+	 *
+	 * @param files    The files to copy
+	 * @param location The location to copy them to
+	 * @param progress A listener for the progress of the copy, called from the
+	 *                 background thread
+	 * @return A future which completes when every file has been copied
+	 */
+	@Nonnull
+	public abstract CompletableFuture<Void> copyFilesAsync(@Nonnull Iterable<File> files, @Nonnull String location, @Nullable CopyProgress progress);
+
 	/**
 	 * Queues a key event
 	 */
@@ -159,6 +197,7 @@ public abstract class EmulatedComputer extends Computer {
 	 * in the process of starting up or shutting down as "on".
 	 *
 	 * @return If this computer is shut down.
+	 * @see Listener#onShutdownChanged(boolean)
 	 */
 	public abstract boolean isShutdown();
 }
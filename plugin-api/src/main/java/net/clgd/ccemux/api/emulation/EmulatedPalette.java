@@ -1,7 +1,7 @@
 package net.clgd.ccemux.api.emulation;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.annotation.Nonnull;
 
@@ -22,7 +22,11 @@ public class EmulatedPalette extends Palette {
 	}
 
 	private final Palette delegate;
-	private final List<ColorChangeListener> listeners = new ArrayList<>();
+	/**
+	 * Renderers may add and remove listeners from their own threads while
+	 * colours are changed on the computer thread
+	 */
+	private final List<ColorChangeListener> listeners = new CopyOnWriteArrayList<>();
 	/**
 	 * Whether a color in this palette has been changed
 	 */
@@ -58,6 +62,7 @@ public class EmulatedPalette extends Palette {
 		if (delegate == null) return;
 		delegate.resetColour(i);
 		setChanged(true);
+		fireColourChanged(i);
 	}
 
 	/**
@@ -68,6 +73,15 @@ public class EmulatedPalette extends Palette {
 		if (delegate == null) return;
 		delegate.resetColours();
 		setChanged(true);
+		for (int i = 0; i < 16; i++) fireColourChanged(i);
+	}
+
+	private void fireColourChanged(int i) {
+		if (listeners.isEmpty()) return;
+
+		double[] colour = delegate.getColour(i);
+		if (colour == null) return;
+		for (ColorChangeListener listener : listeners) listener.setColour(i, colour[0], colour[1], colour[2]);
 	}
 
 	/**
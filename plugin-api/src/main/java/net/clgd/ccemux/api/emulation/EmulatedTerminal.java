@@ -1,6 +1,7 @@
 package net.clgd.ccemux.api.emulation;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import javax.annotation.Nonnull;
@@ -9,7 +10,8 @@ import dan200.computercraft.core.terminal.Terminal;
 
 /**
  * A wrapper for {@link Terminal} that allows {@link Listener listeners} to be
- * added
+ * added, and which tracks which lines have been changed so renderers can redraw
+ * only the damaged parts of the terminal.
  */
 public class EmulatedTerminal extends Terminal {
 
@@ -38,14 +40,62 @@ public class EmulatedTerminal extends Terminal {
 	private final EmulatedPalette palette;
 	private final List<Listener> listeners = new ArrayList<>();
 
+	/**
+	 * The lines which have changed since damage was last drained
+	 */
+	private final BitSet damage = new BitSet();
+
 	public EmulatedTerminal(int width, int height) {
 		super(width, height);
 		this.palette = new EmulatedPalette(super.getPalette());
+		damageAll();
+	}
+
+	private synchronized void damageLine(int y) {
+		// The damage set is null if the superclass constructor calls one of our
+		// overridden methods. The constructor damages everything anyway.
+		if (damage != null && y >= 0 && y < getHeight()) damage.set(y);
+	}
+
+	private synchronized void damageAll() {
+		if (damage != null) damage.set(0, getHeight());
+	}
+
+	/**
+	 * Whether any lines have been changed since damage was last drained
+	 *
+	 * @see #drainDamage(BitSet)
+	 */
+	public synchronized boolean hasDamage() {
+		return !damage.isEmpty();
+	}
+
+	/**
+	 * Copies the set of lines which have changed since the last call into
+	 * {@code out}, and then resets the damage. This includes lines the cursor
+	 * has moved to or from.
+	 *
+	 * Only one renderer should drain damage from a given terminal.
+	 *
+	 * @param out The set to write damaged line indexes to. Any existing contents
+	 *            are cleared.
+	 */
+	public synchronized void drainDamage(@Nonnull BitSet out) {
+		out.clear();
+		out.or(damage);
+		damage.clear();
+	}
+
+	@Override
+	public synchronized void reset() {
+		super.reset();
+		damageAll();
 	}
 
 	@Override
 	public void resize(int width, int height) {
 		super.resize(width, height);
+		damageAll();
 		for (Listener listener : listeners) {
 			listener.resize(width, height);
 		}
@@ -53,7 +103,9 @@ public class EmulatedTerminal extends Terminal {
 
 	@Override
 	public void setCursorPos(int x, int y) {
+		damageLine(getCursorY());
 		super.setCursorPos(x, y);
+		damageLine(y);
 		for (Listener listener : listeners) {
 			listener.setCursorPos(x, y);
 		}
@@ -62,6 +114,7 @@ public class EmulatedTerminal extends Terminal {
 	@Override
 	public void setCursorBlink(boolean blink) {
 		super.setCursorBlink(blink);
+		damageLine(getCursorY());
 		for (Listener listener : listeners) {
 			listener.setCursorBlink(blink);
 		}
@@ -86,6 +139,7 @@ public class EmulatedTerminal extends Terminal {
 	@Override
 	public void blit(@Nonnull String text, @Nonnull String textColour, @Nonnull String backgroundColour) {
 		super.blit(text, textColour, backgroundColour);
+		damageLine(getCursorY());
 		for (Listener listener : listeners) {
 			listener.blit(text, textColour, backgroundColour);
 		}
@@ -94,6 +148,7 @@ public class EmulatedTerminal extends Terminal {
 	@Override
 	public void write(@Nonnull String text) {
 		super.write(text);
+		damageLine(getCursorY());
 		for (Listener listener : listeners) {
 			listener.write(text);
 		}
@@ -102,6 +157,7 @@ public class EmulatedTerminal extends Terminal {
 	@Override
 	public void scroll(int yDiff) {
 		super.scroll(yDiff);
+		damageAll();
 		for (Listener listener : listeners) {
 			listener.scroll(yDiff);
 		}
@@ -110,6 +166,7 @@ public class EmulatedTerminal extends Terminal {
 	@Override
 	public void clear() {
 		super.clear();
+		damageAll();
 		for (Listener listener : listeners) {
 			listener.clear();
 		}
@@ -118,6 +175,7 @@ public class EmulatedTerminal extends Terminal {
 	@Override
 	public void clearLine() {
 		super.clearLine();
+		damageLine(getCursorY());
 		for (Listener listener : listeners) {
 			listener.clearLine();
 		}
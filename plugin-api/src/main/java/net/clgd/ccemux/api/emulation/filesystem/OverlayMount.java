@@ -0,0 +1,216 @@
+package net.clgd.ccemux.api.emulation.filesystem;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.io.ByteStreams;
+
+import dan200.computercraft.api.filesystem.IMount;
+import dan200.computercraft.api.filesystem.IWritableMount;
+
+/**
+ * A writable mount which layers a computer's own files over a shared,
+ * read-only base. Many computers can share one base without copying it.
+ *
+ * Writes go to the upper layer, and files from the base are only copied up
+ * when they are appended to. Deleting an entry from the base records a
+ * whiteout, which hides it and everything below it in the base. Whiteouts
+ * are stored in a hidden file in the upper layer, so they persist as long as
+ * the upper layer does.
+ *
+ * Only the upper layer counts towards the computer's capacity, so the shared
+ * base is free.
+ */
+public class OverlayMount implements IWritableMount {
+	private static final String WHITEOUT_FILE = ".overlay-whiteouts";
+
+	private final IMount base;
+	private final IWritableMount upper;
+
+	/**
+	 * Paths in the base which have been deleted, guarded by this
+	 */
+	private final Set<String> whiteouts = new HashSet<>();
+
+	/**
+	 * Creates a new overlay
+	 *
+	 * @param base  The read-only base, which may be shared between mounts
+	 * @param upper The layer changes are written to
+	 * @throws IOException If the upper layer's whiteouts could not be read
+	 */
+	public OverlayMount(@Nonnull IMount base, @Nonnull IWritableMount upper) throws IOException {
+		this.base = base;
+		this.upper = upper;
+
+		if (upper.exists(WHITEOUT_FILE)) {
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(upper.openForRead(WHITEOUT_FILE), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (!line.isEmpty()) whiteouts.add(line);
+				}
+			}
+		}
+	}
+
+	private static String getParent(String path) {
+		int index = path.lastIndexOf('/');
+		return index < 0 ? "" : path.substring(0, index);
+	}
+
+	/**
+	 * Whether the given path, or any of its parents, has been deleted from the
+	 * base
+	 */
+	private synchronized boolean isWhitedOut(String path) {
+		if (whiteouts.isEmpty()) return false;
+
+		for (String p = path; !p.isEmpty(); p = getParent(p)) {
+			if (whiteouts.contains(p)) return true;
+		}
+
+		return false;
+	}
+
+	private boolean inBase(String path) throws IOException {
+		return !isWhitedOut(path) && base.exists(path);
+	}
+
+	private boolean isWhiteoutFile(String path) {
+		return path.equals(WHITEOUT_FILE);
+	}
+
+	@Override
+	public boolean exists(@Nonnull String path) throws IOException {
+		if (isWhiteoutFile(path)) return false;
+		return upper.exists(path) || inBase(path);
+	}
+
+	@Override
+	public boolean isDirectory(@Nonnull String path) throws IOException {
+		if (isWhiteoutFile(path)) return false;
+		if (upper.exists(path)) return upper.isDirectory(path);
+		return inBase(path) && base.isDirectory(path);
+	}
+
+	@Override
+	public void list(@Nonnull String path, @Nonnull List<String> contents) throws IOException {
+		boolean upperDir = upper.isDirectory(path);
+		// A file in the upper layer hides a directory in the base
+		boolean baseDir = (upperDir || !upper.exists(path)) && inBase(path) && base.isDirectory(path);
+		if (!upperDir && !baseDir) throw new IOException("Not a directory");
+
+		Set<String> names = new LinkedHashSet<>();
+		List<String> children = new ArrayList<>();
+		if (upperDir) {
+			upper.list(path, children);
+			names.addAll(children);
+			if (path.isEmpty()) names.remove(WHITEOUT_FILE);
+		}
+
+		if (baseDir) {
+			children.clear();
+			base.list(path, children);
+			for (String child : children) {
+				if (!isWhitedOut(path.isEmpty() ? child : path + "/" + child)) names.add(child);
+			}
+		}
+
+		contents.addAll(names);
+	}
+
+	@Override
+	public long getSize(@Nonnull String path) throws IOException {
+		if (isWhiteoutFile(path)) throw new IOException("No such file");
+		if (upper.exists(path)) return upper.getSize(path);
+		if (inBase(path)) return base.getSize(path);
+		throw new IOException("No such file");
+	}
+
+	@Nonnull
+	@Override
+	public InputStream openForRead(@Nonnull String path) throws IOException {
+		if (isWhiteoutFile(path)) throw new IOException("No such file");
+		if (upper.exists(path)) return upper.openForRead(path);
+		if (inBase(path)) return base.openForRead(path);
+		throw new IOException("No such file");
+	}
+
+	@Override
+	public void makeDirectory(@Nonnull String path) throws IOException {
+		if (isWhiteoutFile(path)) throw new IOException("Access denied");
+		upper.makeDirectory(path);
+	}
+
+	@Override
+	public void delete(@Nonnull String path) throws IOException {
+		if (isWhiteoutFile(path)) throw new IOException("Access denied");
+		if (upper.exists(path)) upper.delete(path);
+
+		if (inBase(path)) {
+			synchronized (this) {
+				whiteouts.add(path);
+				saveWhiteouts();
+			}
+		}
+	}
+
+	@Nonnull
+	@Override
+	public OutputStream openForWrite(@Nonnull String path) throws IOException {
+		if (isWhiteoutFile(path)) throw new IOException("Access denied");
+		ensureParent(path);
+		return upper.openForWrite(path);
+	}
+
+	@Nonnull
+	@Override
+	public OutputStream openForAppend(@Nonnull String path) throws IOException {
+		if (isWhiteoutFile(path)) throw new IOException("Access denied");
+
+		if (!upper.exists(path) && inBase(path) && !base.isDirectory(path)) {
+			// Copy the file up, so it can be appended to
+			if (base.getSize(path) > upper.getRemainingSpace()) throw new IOException("Out of space");
+
+			ensureParent(path);
+			try (InputStream in = base.openForRead(path); OutputStream out = upper.openForWrite(path)) {
+				ByteStreams.copy(in, out);
+			}
+		}
+
+		return upper.openForAppend(path);
+	}
+
+	@Override
+	public long getRemainingSpace() throws IOException {
+		return upper.getRemainingSpace();
+	}
+
+	/**
+	 * Creates the parent directory of a path in the upper layer, if it only
+	 * exists in the base
+	 */
+	private void ensureParent(String path) throws IOException {
+		String parent = getParent(path);
+		if (!parent.isEmpty() && !upper.isDirectory(parent)) upper.makeDirectory(parent);
+	}
+
+	private void saveWhiteouts() throws IOException {
+		try (Writer writer = new OutputStreamWriter(upper.openForWrite(WHITEOUT_FILE), StandardCharsets.UTF_8)) {
+			for (String path : whiteouts) writer.write(path + "\n");
+		}
+	}
+}
@@ -1,21 +1,38 @@
 package net.clgd.ccemux.api.emulation.filesystem;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import javax.annotation.Nonnull;
 
+import com.google.common.base.Preconditions;
+
 /**
  * Represents an immutable, in-memory file for use with
  * {@link VirtualMount}
  *
+ * The contents are held in a {@link ByteBuffer}, which may be a heap,
+ * direct or memory-mapped buffer. Files created from a {@link URL} are only
+ * loaded, into a direct buffer, when they are first read.
+ *
  * @author apemanzilla
  */
 public final class VirtualFile extends VirtualMountEntry {
-	private final byte[] data;
+	private final URL source;
+	private volatile ByteBuffer data;
 
 	public VirtualFile(@Nonnull byte[] data) {
-		this.data = data;
+		this(ByteBuffer.wrap(data));
 	}
 
 	public VirtualFile(@Nonnull char[] data) {
@@ -26,8 +43,115 @@ public final class VirtualFile extends VirtualMountEntry {
 		this(data.getBytes(StandardCharsets.UTF_8));
 	}
 
+	/**
+	 * Creates a file containing the remaining bytes of a buffer. The buffer is
+	 * used directly, so must not be modified afterwards.
+	 */
+	public VirtualFile(@Nonnull ByteBuffer data) {
+		this.source = null;
+		this.data = data.slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * Creates a file which is loaded from the given URL, such as a class path
+	 * resource, when it is first read.
+	 */
+	public VirtualFile(@Nonnull URL source) {
+		this.source = Preconditions.checkNotNull(source, "source cannot be null");
+		this.data = null;
+	}
+
+	/**
+	 * Creates a file by copying the given data into a direct buffer, outside
+	 * of the Java heap.
+	 */
+	@Nonnull
+	public static VirtualFile direct(@Nonnull byte[] data) {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+		buffer.put(data).flip();
+		return new VirtualFile(buffer);
+	}
+
+	/**
+	 * Creates a file by mapping the given file into memory. Changes to the
+	 * file may or may not be visible through the mapping.
+	 */
+	@Nonnull
+	public static VirtualFile map(@Nonnull Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new VirtualFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Gets the contents of this file, loading them if needed. The returned
+	 * buffer is read-only, and shared, so should be duplicated before its
+	 * position is changed.
+	 *
+	 * @throws UncheckedIOException If this file could not be loaded
+	 */
+	@Nonnull
+	private ByteBuffer getBuffer() {
+		ByteBuffer data = this.data;
+		if (data == null) {
+			synchronized (this) {
+				data = this.data;
+				if (data == null) this.data = data = load(source);
+			}
+		}
+		return data;
+	}
+
+	private static ByteBuffer load(URL source) {
+		try {
+			URLConnection connection = source.openConnection();
+			long length = connection.getContentLengthLong();
+
+			try (ReadableByteChannel channel = Channels.newChannel(connection.getInputStream())) {
+				ByteBuffer buffer = ByteBuffer.allocateDirect(length >= 0 ? (int) length : 8192);
+				ByteBuffer probe = ByteBuffer.allocate(1);
+				while (true) {
+					if (buffer.hasRemaining()) {
+						if (channel.read(buffer) < 0) break;
+					} else {
+						// The buffer is full, so check there is more to read before growing it
+						probe.clear();
+						if (channel.read(probe) < 0) break;
+
+						ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, 8192));
+						buffer.flip();
+						probe.flip();
+						larger.put(buffer).put(probe);
+						buffer = larger;
+					}
+				}
+
+				buffer.flip();
+				return buffer.asReadOnlyBuffer();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to load " + source, e);
+		}
+	}
+
 	public int length() {
-		return data.length;
+		return getBuffer().remaining();
+	}
+
+	/**
+	 * Opens a channel which reads this file's contents without copying them
+	 */
+	@Nonnull
+	public ReadableByteChannel openChannel() {
+		return new BufferChannel(getBuffer().duplicate());
+	}
+
+	/**
+	 * Opens a stream which reads this file's contents without copying them
+	 */
+	@Nonnull
+	public InputStream openStream() {
+		return new BufferInputStream(getBuffer().duplicate());
 	}
 
 	@Override
@@ -35,16 +159,89 @@ public final class VirtualFile extends VirtualMountEntry {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		VirtualFile that = (VirtualFile) o;
-		return Arrays.equals(data, that.data);
+		return getBuffer().equals(that.getBuffer());
 	}
 
 	@Override
 	public int hashCode() {
-		return Arrays.hashCode(data);
+		return getBuffer().hashCode();
 	}
 
+	/**
+	 * Gets a copy of the contents of this file
+	 */
 	@Nonnull
 	public byte[] getData() {
-		return this.data;
+		ByteBuffer buffer = getBuffer().duplicate();
+		byte[] data = new byte[buffer.remaining()];
+		buffer.get(data);
+		return data;
+	}
+
+	private static final class BufferChannel implements ReadableByteChannel {
+		private final ByteBuffer buffer;
+		private boolean open = true;
+
+		BufferChannel(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			if (!open) throw new IOException("Channel is closed");
+			if (!buffer.hasRemaining()) return -1;
+
+			int count = Math.min(dst.remaining(), buffer.remaining());
+			ByteBuffer slice = buffer.duplicate();
+			slice.limit(slice.position() + count);
+			dst.put(slice);
+			buffer.position(buffer.position() + count);
+			return count;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void close() {
+			open = false;
+		}
+	}
+
+	private static final class BufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		BufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(@Nonnull byte[] b, int off, int len) {
+			if (len == 0) return 0;
+			if (!buffer.hasRemaining()) return -1;
+
+			int count = Math.min(len, buffer.remaining());
+			buffer.get(b, off, count);
+			return count;
+		}
+
+		@Override
+		public long skip(long n) {
+			int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + count);
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
 	}
 }
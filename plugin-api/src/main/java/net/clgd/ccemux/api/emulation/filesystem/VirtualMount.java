@@ -1,11 +1,15 @@
 package net.clgd.ccemux.api.emulation.filesystem;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -16,11 +20,19 @@ import dan200.computercraft.api.filesystem.IMount;
  * An immutable, in-memory {@link dan200.computercraft.api.filesystem.IMount
  * IMount} implementation.
  *
+ * As the mount cannot change, every entry is indexed by its normalized path
+ * when the mount is created, so looking up a path is a single hash lookup.
+ *
  * @author apemanzilla
  */
 public class VirtualMount implements IMount {
 	private final VirtualDirectory root;
 
+	/**
+	 * Every entry in this mount, by its normalized path
+	 */
+	private final Map<String, VirtualMountEntry> index = new HashMap<>();
+
 	/**
 	 * Constructs a new {@link VirtualMount} with the given
 	 * {@link net.clgd.ccemux.api.emulation.filesystem.VirtualDirectory
@@ -30,6 +42,17 @@ public class VirtualMount implements IMount {
 	 */
 	public VirtualMount(@Nonnull VirtualDirectory root) {
 		this.root = root;
+		index(root, "");
+	}
+
+	private void index(VirtualMountEntry entry, String path) {
+		index.put(path, entry);
+		if (entry instanceof VirtualDirectory) {
+			VirtualDirectory dir = (VirtualDirectory) entry;
+			for (String name : dir.getEntryNames()) {
+				index(dir.getEntry(name), path.isEmpty() ? name : path + "/" + name);
+			}
+		}
 	}
 
 	/**
@@ -44,36 +67,81 @@ public class VirtualMount implements IMount {
 	 */
 	@Nullable
 	public VirtualMountEntry follow(@Nonnull Path path) {
-		if (path.normalize().equals(Paths.get(""))) return root;
-		VirtualMountEntry current = getRoot();
-		for (Path p : path.normalize()) {
-			if (!(current instanceof VirtualDirectory)) return null;
-			current = ((VirtualDirectory) current).getEntry(p.getName(0).toString());
-			if (current == null) return null;
+		StringBuilder builder = new StringBuilder();
+		for (Path p : path) builder.append('/').append(p.toString());
+
+		// Strip the leading separator from relative paths
+		return follow(path.isAbsolute() || builder.length() == 0 ? builder.toString() : builder.substring(1));
+	}
+
+	/**
+	 * Follows the given path to get a
+	 * {@link net.clgd.ccemux.api.emulation.filesystem.VirtualMountEntry
+	 * MountEntry}, using {@code /} as the separator.
+	 *
+	 * @param path The path to follow
+	 * @return The entry at the given path, or {@code null} if the path is
+	 * invalid
+	 * @see #follow(Path)
+	 */
+	@Nullable
+	public VirtualMountEntry follow(@Nonnull String path) {
+		// Paths from ComputerCraft are already normalized, so try them as-is first
+		VirtualMountEntry entry = index.get(path);
+		if (entry != null) return entry;
+
+		String normalized = normalize(path);
+		return normalized == null || normalized.equals(path) ? null : index.get(normalized);
+	}
+
+	/**
+	 * Removes redundant separators, {@code .} and {@code ..} from a path.
+	 * Returns {@code null} if a relative path goes above its root.
+	 */
+	@Nullable
+	private static String normalize(String path) {
+		Deque<String> names = new ArrayDeque<>();
+		for (String name : path.split("/")) {
+			if (name.isEmpty() || name.equals(".")) continue;
+
+			if (name.equals("..")) {
+				if (!names.isEmpty()) {
+					names.removeLast();
+				} else if (!path.startsWith("/")) {
+					return null;
+				}
+			} else {
+				names.addLast(name);
+			}
 		}
-		return current;
+
+		return String.join("/", names);
 	}
 
 	@Override
 	public boolean exists(@Nonnull String path) {
-		return follow(Paths.get(path)) != null;
+		return follow(path) != null;
 	}
 
 	@Override
 	public long getSize(@Nonnull String path) throws IOException {
-		VirtualMountEntry e = follow(Paths.get(path));
+		VirtualMountEntry e = follow(path);
 		if (e == null) throw new IOException("No such file or directory");
-		return e instanceof VirtualFile ? ((VirtualFile) e).length() : 0;
+		try {
+			return e instanceof VirtualFile ? ((VirtualFile) e).length() : 0;
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
 	}
 
 	@Override
 	public boolean isDirectory(@Nonnull String path) {
-		return follow(Paths.get(path)) instanceof VirtualDirectory;
+		return follow(path) instanceof VirtualDirectory;
 	}
 
 	@Override
 	public void list(@Nonnull String path, @Nonnull List<String> names) throws IOException {
-		VirtualMountEntry e = follow(Paths.get(path));
+		VirtualMountEntry e = follow(path);
 		if (e instanceof VirtualDirectory) {
 			names.addAll(((VirtualDirectory) e).getEntryNames());
 		} else {
@@ -84,9 +152,35 @@ public class VirtualMount implements IMount {
 	@Override
 	@Nonnull
 	public InputStream openForRead(@Nonnull String path) throws IOException {
-		VirtualMountEntry e = follow(Paths.get(path));
+		try {
+			return getFile(path).openStream();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Opens a channel to read the file at the given path, without copying its
+	 * contents.
+	 *
+	 * @param path The path of the file
+	 * @return A channel reading the file
+	 * @throws IOException If the path is not a file, or it could not be loaded
+	 */
+	@Nonnull
+	public ReadableByteChannel openChannelForRead(@Nonnull String path) throws IOException {
+		try {
+			return getFile(path).openChannel();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	@Nonnull
+	private VirtualFile getFile(String path) throws IOException {
+		VirtualMountEntry e = follow(path);
 		if (e instanceof VirtualFile) {
-			return new ByteArrayInputStream(((VirtualFile) e).getData());
+			return (VirtualFile) e;
 		} else {
 			throw new IOException("Only files can be read");
 		}
@@ -0,0 +1,154 @@
+package net.clgd.ccemux.api.lua;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.base.Preconditions;
+
+import dan200.computercraft.api.lua.ILuaContext;
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.core.apis.ILuaAPI;
+
+/**
+ * A base class for Lua APIs, whose functions are the public methods marked
+ * with {@link LuaFunction}.
+ *
+ * The functions of each class are found once, and called through a table
+ * indexed by method number, so calls do not search or allocate.
+ *
+ * <pre>
+ * public class MyAPI extends LuaAPI {
+ * 	public MyAPI() {
+ * 		super("myapi");
+ * 	}
+ *
+ * 	&#64;LuaFunction
+ * 	public Object[] hello(Object[] args) {
+ * 		return new Object[] { "Hello, world!" };
+ * 	}
+ * }
+ * </pre>
+ */
+public abstract class LuaAPI implements ILuaAPI {
+	private static final MethodType INVOKER = MethodType.methodType(Object[].class, LuaAPI.class, ILuaContext.class, Object[].class);
+
+	private static final ClassValue<Functions> functions = new ClassValue<Functions>() {
+		@Override
+		protected Functions computeValue(Class<?> type) {
+			return new Functions(type);
+		}
+	};
+
+	/**
+	 * The Lua functions of a class, in method number order
+	 */
+	private static final class Functions {
+		final String[] names;
+		final MethodHandle[] handles;
+
+		Functions(Class<?> type) {
+			// Sort the methods so method numbers do not depend on reflection order
+			Method[] methods = type.getMethods();
+			Arrays.sort(methods, Comparator.comparing(Method::getName));
+
+			List<String> names = new ArrayList<>();
+			List<MethodHandle> handles = new ArrayList<>();
+			for (Method method : methods) {
+				LuaFunction function = method.getAnnotation(LuaFunction.class);
+				if (function == null) continue;
+
+				MethodHandle handle = getHandle(method);
+				if (function.value().length == 0) {
+					names.add(method.getName());
+					handles.add(handle);
+				} else {
+					for (String name : function.value()) {
+						names.add(name);
+						handles.add(handle);
+					}
+				}
+			}
+
+			this.names = names.toArray(new String[0]);
+			this.handles = handles.toArray(new MethodHandle[0]);
+		}
+
+		private static MethodHandle getHandle(Method method) {
+			Class<?>[] params = method.getParameterTypes();
+			boolean withContext = Arrays.equals(params, new Class<?>[] { ILuaContext.class, Object[].class });
+			Preconditions.checkArgument(
+				!Modifier.isStatic(method.getModifiers()) && method.getReturnType() == Object[].class
+					&& (withContext || Arrays.equals(params, new Class<?>[] { Object[].class })),
+				"Lua function %s must be an instance method returning Object[], taking Object[] or (ILuaContext, Object[])",
+				method);
+
+			// The class may not be public, so bypass access checks like reflection would
+			method.setAccessible(true);
+			MethodHandle handle;
+			try {
+				handle = MethodHandles.lookup().unreflect(method);
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException("Cannot access Lua function " + method, e);
+			}
+
+			if (!withContext) handle = MethodHandles.dropArguments(handle, 1, ILuaContext.class);
+			return handle.asType(INVOKER);
+		}
+	}
+
+	private final String[] names;
+	private final Functions table;
+
+	/**
+	 * @param names The global names this API is available under
+	 * @throws IllegalArgumentException If a method marked with
+	 *                                  {@link LuaFunction} has the wrong signature
+	 */
+	protected LuaAPI(@Nonnull String... names) {
+		this.names = Preconditions.checkNotNull(names, "names cannot be null");
+		this.table = functions.get(getClass());
+	}
+
+	@Override
+	public String[] getNames() {
+		return names;
+	}
+
+	@Nonnull
+	@Override
+	public String[] getMethodNames() {
+		return table.names;
+	}
+
+	@Override
+	public Object[] callMethod(@Nonnull ILuaContext context, int method, @Nonnull Object[] arguments)
+			throws LuaException, InterruptedException {
+		if (method < 0 || method >= table.handles.length) throw new LuaException("Method index out of range");
+
+		try {
+			return (Object[]) table.handles[method].invokeExact(this, context, arguments);
+		} catch (LuaException | InterruptedException | RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new LuaException(e.toString());
+		}
+	}
+
+	@Override
+	public void startup() {}
+
+	@Override
+	public void advance(double dt) {}
+
+	@Override
+	public void shutdown() {}
+}
@@ -0,0 +1,23 @@
+package net.clgd.ccemux.api.lua;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a public method of a {@link LuaAPI} as callable from Lua.
+ *
+ * The method must return {@code Object[]}, and take either the arguments as
+ * an {@code Object[]}, or an {@link dan200.computercraft.api.lua.ILuaContext}
+ * followed by the arguments.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface LuaFunction {
+	/**
+	 * The names this function is exposed to Lua as. If empty, the method's own
+	 * name is used.
+	 */
+	String[] value() default {};
+}
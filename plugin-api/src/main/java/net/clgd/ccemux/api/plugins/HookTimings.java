@@ -0,0 +1,53 @@
+package net.clgd.ccemux.api.plugins;
+
+import javax.annotation.Nonnull;
+
+import net.clgd.ccemux.api.plugins.hooks.Hook;
+
+/**
+ * How long the hooks of a single type registered by a plugin have taken to
+ * run. Durations are in nanoseconds.
+ *
+ * @see PluginManager#getHookTimings()
+ */
+public interface HookTimings {
+	@Nonnull
+	Plugin getPlugin();
+
+	@Nonnull
+	Class<? extends Hook> getHookType();
+
+	/**
+	 * Gets the number of times these hooks have been called
+	 */
+	long getCount();
+
+	double getMean();
+
+	long getMax();
+
+	/**
+	 * Estimates the duration which the given percentage of calls took no
+	 * longer than
+	 *
+	 * @param percentile The percentile, between 0 and 100
+	 */
+	long getValueAtPercentile(double percentile);
+
+	/**
+	 * Gets the number of calls which took longer than the emulator's hook
+	 * budget
+	 */
+	long getSlowCalls();
+
+	/**
+	 * Whether these hooks are no longer called, because they were too slow
+	 */
+	boolean isDisabled();
+
+	/**
+	 * Starts calling these hooks again after they were disabled for being too
+	 * slow
+	 */
+	void enable();
+}
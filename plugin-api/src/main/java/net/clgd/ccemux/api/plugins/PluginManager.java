@@ -1,5 +1,8 @@
 package net.clgd.ccemux.api.plugins;
 
+import java.util.Collections;
+import java.util.List;
+
 import javax.annotation.Nonnull;
 
 import net.clgd.ccemux.api.emulation.EmuConfig;
@@ -39,4 +42,15 @@ public interface PluginManager {
 	 * @throws IllegalStateException If there is already a peripheral with the same name.
 	 */
 	void addPeripheral(@Nonnull String name, @Nonnull PeripheralFactory<?> factory);
+
+	/**
+	 * Gets how long each plugin's hooks have taken to run, by plugin and hook
+	 * type. This is empty until plugins have been set up.
+	 *
+	 * @return The timings of every enabled plugin's hooks
+	 */
+	@Nonnull
+	default List<? extends HookTimings> getHookTimings() {
+		return Collections.emptyList();
+	}
 }
@@ -12,6 +12,13 @@ import net.clgd.ccemux.api.emulation.filesystem.VirtualMountEntry;
  * Called when CCEmuX creates the ROM for computers. This hook allows plugins to
  * add their own ROM entries, using {@link VirtualDirectory.Builder}.
  *
+ * The ROM is built once and shared by every computer, so entries should not
+ * depend on any particular computer. This hook is therefore called when the
+ * first computer boots, rather than every time a computer boots, and entries
+ * added later are not seen until the emulator restarts. If two computers boot
+ * at the same time it may be called more than once, in which case only one
+ * of the ROMs is kept.
+ *
  * @author apemanzilla
  * @see VirtualDirectory.Builder#addEntry(Path, VirtualMountEntry)
  */
@@ -1,13 +1,18 @@
 package net.clgd.ccemux.api.rendering;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.annotation.Nonnull;
 
 import dan200.computercraft.shared.util.Palette;
 import net.clgd.ccemux.api.Utils;
+import net.clgd.ccemux.api.emulation.EmulatedPalette;
 
 /**
  * Wraps a {@link Palette} object with a given {@link ColorAdapter} to make it
- * easier to get color objects from the palette
+ * easier to get color objects from the palette. Converted colors are cached
+ * for {@link EmulatedPalette}s, so looking up a terminal color is an array
+ * access.
  *
  * @param <C>
  * @author apemanzilla
@@ -33,9 +38,29 @@ public final class PaletteAdapter<C> {
 		T rgb(double r, double g, double b);
 	}
 
+	private static final int COLOURS = 16;
+
 	private final Palette palette;
 	private final ColorAdapter<C> adapter;
 
+	/**
+	 * Whether colours are cached. This is only possible for an
+	 * {@link EmulatedPalette}, as other palettes cannot notify us of changes.
+	 */
+	private final boolean cached;
+
+	/**
+	 * The adapted and packed colours for each terminal colour
+	 */
+	private final Object[] colors = new Object[COLOURS];
+	private final int[] argb = new int[COLOURS];
+
+	/**
+	 * A bitmask of the terminal colours which need to be recomputed. This is
+	 * set from the computer thread when the palette changes.
+	 */
+	private final AtomicInteger stale = new AtomicInteger((1 << COLOURS) - 1);
+
 	/**
 	 * Creates a color object using the given RGB values (Equivalent to {@code getAdapter().rgb(r,g,b)}
 	 *
@@ -54,13 +79,12 @@ public final class PaletteAdapter<C> {
 	 * @param c The numeric index of the terminal color
 	 * @return The converted color
 	 */
+	@SuppressWarnings("unchecked")
 	public C getColor(int c) {
-		double[] col;
-		if ((col = palette.getColour(15 - c)) == null) {
-			col = palette.getColour(0);
-		}
-		col = Utils.clampColor(col);
-		return getColor(col[0], col[1], col[2]);
+		if (!cached || c < 0 || c >= COLOURS) return computeColor(c);
+
+		validate(c);
+		return (C) colors[c];
 	}
 
 	/**
@@ -73,9 +97,86 @@ public final class PaletteAdapter<C> {
 		return getColor(Utils.base16ToInt(c));
 	}
 
+	/**
+	 * Gets the given color from the palette as a packed, opaque ARGB int
+	 *
+	 * @param c The numeric index of the terminal color
+	 * @return The color in {@code 0xAARRGGBB} form
+	 */
+	public int getArgb(int c) {
+		if (!cached || c < 0 || c >= COLOURS) return computeArgb(c);
+
+		validate(c);
+		return argb[c];
+	}
+
+	/**
+	 * Recomputes the given colour if it has changed since it was last cached.
+	 */
+	private void validate(int c) {
+		int bit = 1 << c;
+		int mask;
+		do {
+			mask = stale.get();
+			if ((mask & bit) == 0) return;
+		} while (!stale.compareAndSet(mask, mask & ~bit));
+
+		// The bit is cleared before reading the palette, so a concurrent change
+		// will mark it as stale again rather than being lost.
+		colors[c] = computeColor(c);
+		argb[c] = computeArgb(c);
+	}
+
+	@Nonnull
+	private double[] getColour(int c) {
+		double[] col;
+		if ((col = palette.getColour(15 - c)) == null) {
+			col = palette.getColour(0);
+		}
+		return col;
+	}
+
+	private C computeColor(int c) {
+		double[] col = getColour(c);
+		return getColor(
+			Utils.constrainToRange(col[0], 0, 1),
+			Utils.constrainToRange(col[1], 0, 1),
+			Utils.constrainToRange(col[2], 0, 1)
+		);
+	}
+
+	private int computeArgb(int c) {
+		double[] col = getColour(c);
+		return 0xFF000000
+			| toByte(col[0]) << 16
+			| toByte(col[1]) << 8
+			| toByte(col[2]);
+	}
+
+	private static int toByte(double channel) {
+		return (int) (Utils.constrainToRange(channel, 0, 1) * 255 + 0.5);
+	}
+
+	/**
+	 * Creates a new palette adapter. If the palette is an {@link EmulatedPalette},
+	 * converted colours are cached until the palette changes.
+	 *
+	 * @param palette The palette to read colours from
+	 * @param adapter The adapter to convert colours with
+	 */
 	public PaletteAdapter(@Nonnull Palette palette, @Nonnull ColorAdapter<C> adapter) {
 		this.palette = palette;
 		this.adapter = adapter;
+
+		if (palette instanceof EmulatedPalette) {
+			cached = true;
+			((EmulatedPalette) palette).addListener((i, r, g, b) -> {
+				int c = 15 - i;
+				if (c >= 0 && c < COLOURS) stale.getAndUpdate(mask -> mask | (1 << c));
+			});
+		} else {
+			cached = false;
+		}
 	}
 
 	@Nonnull
@@ -0,0 +1,284 @@
+package net.clgd.ccemux.api.rendering;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.base.Preconditions;
+
+import dan200.computercraft.core.terminal.Terminal;
+import dan200.computercraft.core.terminal.TextBuffer;
+import net.clgd.ccemux.api.Utils;
+
+/**
+ * A software rasterizer which draws a terminal directly into an {@code int[]}
+ * ARGB framebuffer, which renderers can then copy to the screen in a single
+ * operation.
+ *
+ * Glyphs are scaled to the cell size once, when the rasterizer is created. The
+ * rasterizer is not thread safe, and callers should hold the terminal's lock
+ * while rendering.
+ *
+ * @see TerminalFont
+ * @see PaletteAdapter#getArgb(int)
+ */
+public final class TerminalRasterizer {
+	private static final int GLYPHS = TerminalFont.COLUMNS * TerminalFont.ROWS;
+
+	private final int columns;
+	private final int rows;
+	private final int cellWidth;
+	private final int cellHeight;
+	private final int margin;
+
+	private final int width;
+	private final int height;
+	private final int[] pixels;
+
+	/**
+	 * The scaled glyphs, as non-premultiplied ARGB. Glyph {@code c} starts at
+	 * {@code c * cellWidth * cellHeight}.
+	 */
+	private final int[] glyphs;
+
+	/**
+	 * Whether a glyph has no visible pixels, and so can be skipped
+	 */
+	private final boolean[] emptyGlyphs = new boolean[GLYPHS];
+
+	/**
+	 * The terminal colours as ARGB, refreshed from the palette on every render
+	 */
+	private final int[] colours = new int[16];
+
+	/**
+	 * The decoded colours of the line currently being drawn
+	 */
+	private final byte[] lineForeground;
+	private final byte[] lineBackground;
+
+	/**
+	 * Creates a new rasterizer with its own framebuffer
+	 *
+	 * @see #TerminalRasterizer(TerminalFont, int[], int, int, int, int, int, int, int[])
+	 */
+	public TerminalRasterizer(@Nonnull TerminalFont font, @Nonnull int[] fontPixels, int fontWidth,
+		int columns, int rows, int cellWidth, int cellHeight, int margin) {
+		this(font, fontPixels, fontWidth, columns, rows, cellWidth, cellHeight, margin, null);
+	}
+
+	/**
+	 * Creates a new rasterizer
+	 *
+	 * @param font        The font to draw with
+	 * @param fontPixels  The font's bitmap as non-premultiplied ARGB, in row-major order
+	 * @param fontWidth   The width of the font's bitmap
+	 * @param columns     The width of the terminal, in characters
+	 * @param rows        The height of the terminal, in characters
+	 * @param cellWidth   The width of a character on screen, in pixels
+	 * @param cellHeight  The height of a character on screen, in pixels
+	 * @param margin      The size of the border around the terminal, in pixels
+	 * @param framebuffer The array to draw into, or {@code null} to allocate one. This
+	 *                    must be at least {@link #getWidth()} * {@link #getHeight()} long.
+	 */
+	public TerminalRasterizer(@Nonnull TerminalFont font, @Nonnull int[] fontPixels, int fontWidth,
+		int columns, int rows, int cellWidth, int cellHeight, int margin, int[] framebuffer) {
+		Preconditions.checkArgument(cellWidth > 0 && cellHeight > 0, "cell size must be positive");
+		Preconditions.checkArgument(margin >= 0, "margin cannot be negative");
+
+		this.columns = columns;
+		this.rows = rows;
+		this.cellWidth = cellWidth;
+		this.cellHeight = cellHeight;
+		this.margin = margin;
+
+		this.width = columns * cellWidth + margin * 2;
+		this.height = rows * cellHeight + margin * 2;
+
+		if (framebuffer == null) {
+			framebuffer = new int[width * height];
+		} else if (framebuffer.length < width * height) {
+			throw new IllegalArgumentException("Framebuffer is too small");
+		}
+		this.pixels = framebuffer;
+
+		this.lineForeground = new byte[columns];
+		this.lineBackground = new byte[columns];
+
+		this.glyphs = scaleGlyphs(font, fontPixels, fontWidth);
+	}
+
+	private int[] scaleGlyphs(TerminalFont font, int[] fontPixels, int fontWidth) {
+		int glyphSize = cellWidth * cellHeight;
+		int[] out = new int[GLYPHS * glyphSize];
+
+		for (int c = 0; c < GLYPHS; c++) {
+			Rectangle r = font.getCharCoords((char) c);
+			boolean empty = true;
+
+			int offset = c * glyphSize;
+			for (int y = 0; y < cellHeight; y++) {
+				int sy = r.y + y * r.height / cellHeight;
+				for (int x = 0; x < cellWidth; x++) {
+					int sx = r.x + x * r.width / cellWidth;
+					int pixel = fontPixels[sy * fontWidth + sx];
+
+					out[offset++] = pixel;
+					if (pixel >>> 24 != 0) empty = false;
+				}
+			}
+
+			emptyGlyphs[c] = empty;
+		}
+
+		return out;
+	}
+
+	/**
+	 * Draws the given lines of the terminal into the framebuffer
+	 *
+	 * @param terminal The terminal to draw. This must be the same size as the rasterizer.
+	 * @param palette  The palette to get colours from
+	 * @param lines    The lines to draw
+	 */
+	public void render(@Nonnull Terminal terminal, @Nonnull PaletteAdapter<?> palette, @Nonnull BitSet lines) {
+		for (int i = 0; i < colours.length; i++) colours[i] = palette.getArgb(i);
+
+		int maxY = Math.min(rows, terminal.getHeight());
+		for (int y = lines.nextSetBit(0); y >= 0 && y < maxY; y = lines.nextSetBit(y + 1)) {
+			renderLine(terminal, y);
+		}
+	}
+
+	/**
+	 * Draws every line of the terminal into the framebuffer
+	 *
+	 * @see #render(Terminal, PaletteAdapter, BitSet)
+	 */
+	public void renderAll(@Nonnull Terminal terminal, @Nonnull PaletteAdapter<?> palette) {
+		BitSet lines = new BitSet(rows);
+		lines.set(0, rows);
+		render(terminal, palette, lines);
+	}
+
+	private void renderLine(Terminal terminal, int y) {
+		TextBuffer text = terminal.getLine(y);
+		decodeColours(terminal.getTextColourLine(y), lineForeground, 0);
+		decodeColours(terminal.getBackgroundColourLine(y), lineBackground, 15);
+
+		// The first and last lines also cover the top and bottom margins
+		int top = y == 0 ? 0 : margin + y * cellHeight;
+		int bottom = margin + (y + 1) * cellHeight + (y == rows - 1 ? margin : 0);
+
+		for (int x = 0; x < columns; x++) {
+			int left = x == 0 ? 0 : margin + x * cellWidth;
+			int right = margin + (x + 1) * cellWidth + (x == columns - 1 ? margin : 0);
+
+			int background = colours[lineBackground[x]];
+			for (int py = top; py < bottom; py++) {
+				int row = py * width;
+				for (int px = left; px < right; px++) pixels[row + px] = background;
+			}
+
+			if (text != null) drawGlyph(text.charAt(x), colours[lineForeground[x]], x, y);
+		}
+	}
+
+	/**
+	 * Decodes a line of hexadecimal colours, replacing missing or invalid colours
+	 * with a fallback
+	 */
+	private void decodeColours(TextBuffer line, byte[] out, int fallback) {
+		if (line == null) {
+			Arrays.fill(out, (byte) fallback);
+			return;
+		}
+
+		Utils.base16ToInt(line, out);
+		for (int i = 0; i < columns; i++) {
+			if (out[i] < 0) out[i] = (byte) fallback;
+		}
+	}
+
+	/**
+	 * Draws a single glyph over the existing contents of a cell. This may be used
+	 * to draw the cursor, in which case the line should be redrawn once the cursor
+	 * moves.
+	 *
+	 * @param c      The character to draw
+	 * @param colour The colour of the character, as ARGB
+	 * @param cellX  The column to draw in, starting from 0
+	 * @param cellY  The row to draw in, starting from 0
+	 */
+	public void drawGlyph(char c, int colour, int cellX, int cellY) {
+		if (c >= GLYPHS || emptyGlyphs[c]) return;
+		if (cellX < 0 || cellX >= columns || cellY < 0 || cellY >= rows) return;
+
+		int fr = colour >> 16 & 0xFF, fg = colour >> 8 & 0xFF, fb = colour & 0xFF;
+
+		int glyph = c * cellWidth * cellHeight;
+		int originX = margin + cellX * cellWidth;
+		int originY = margin + cellY * cellHeight;
+
+		for (int y = 0; y < cellHeight; y++) {
+			int row = (originY + y) * width + originX;
+			for (int x = 0; x < cellWidth; x++) {
+				int src = glyphs[glyph++];
+				int a = src >>> 24;
+				if (a == 0) continue;
+
+				// Tint the glyph by the foreground colour, then blend it onto the background
+				int r = (src >> 16 & 0xFF) * fr / 255;
+				int g = (src >> 8 & 0xFF) * fg / 255;
+				int b = (src & 0xFF) * fb / 255;
+
+				if (a != 0xFF) {
+					int dst = pixels[row + x];
+					r = (r * a + (dst >> 16 & 0xFF) * (0xFF - a)) / 0xFF;
+					g = (g * a + (dst >> 8 & 0xFF) * (0xFF - a)) / 0xFF;
+					b = (b * a + (dst & 0xFF) * (0xFF - a)) / 0xFF;
+				}
+
+				pixels[row + x] = 0xFF000000 | r << 16 | g << 8 | b;
+			}
+		}
+	}
+
+	/**
+	 * The framebuffer, as opaque ARGB in row-major order
+	 */
+	@Nonnull
+	public int[] getPixels() {
+		return pixels;
+	}
+
+	/**
+	 * The width of the framebuffer, in pixels
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * The height of the framebuffer, in pixels
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * The width of the terminal this rasterizer draws, in characters
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * The height of the terminal this rasterizer draws, in characters
+	 */
+	public int getRows() {
+		return rows;
+	}
+}
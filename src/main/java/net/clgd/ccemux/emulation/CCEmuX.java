@@ -2,9 +2,12 @@ package net.clgd.ccemux.emulation;
 
 import java.io.*;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
 import java.util.function.Consumer;
 
 import javax.annotation.Nonnull;
@@ -18,12 +21,14 @@ import dan200.computercraft.core.filesystem.FileMount;
 import dan200.computercraft.core.filesystem.JarMount;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import net.clgd.ccemux.api.emulation.EmuConfig;
 import net.clgd.ccemux.api.emulation.EmulatedComputer;
 import net.clgd.ccemux.api.emulation.EmulatedTerminal;
 import net.clgd.ccemux.api.emulation.Emulator;
+import net.clgd.ccemux.api.emulation.filesystem.OverlayMount;
 import net.clgd.ccemux.api.emulation.filesystem.VirtualDirectory;
 import net.clgd.ccemux.api.emulation.filesystem.VirtualMount;
 import net.clgd.ccemux.api.peripheral.PeripheralFactory;
@@ -56,11 +61,32 @@ public class CCEmuX implements Runnable, Emulator, IComputerEnvironment {
 
 	private final Map<EmulatedComputer, Renderer> computers = new ConcurrentHashMap<>();
 
+	/**
+	 * Resource mounts, by path. The JAR and plugin contents cannot change while
+	 * the emulator is running, and the data directory is read as files are
+	 * accessed, so each mount is built once and shared between computers. Mounts
+	 * which failed to build are empty, so they are not retried on every boot.
+	 */
+	private final Map<String, Optional<IMount>> resourceMounts = new ConcurrentHashMap<>();
+
 	private int nextID = 0;
 
-	private long started = -1;
 	private boolean running;
 
+	/**
+	 * The scheduler used to time ticks. If not set before {@link #run()} is called,
+	 * a {@link FixedRateTickScheduler} will be created from the config.
+	 */
+	@Getter
+	@Setter
+	private TickScheduler tickScheduler;
+
+	/**
+	 * The pool used to tick computers in parallel, or {@code null} if computers
+	 * are ticked on the emulator thread.
+	 */
+	private ForkJoinPool tickPool;
+
 	@Nonnull
 	@Override
 	public EmuConfig getConfig() {
@@ -163,45 +189,94 @@ public class CCEmuX implements Runnable, Emulator, IComputerEnvironment {
 	}
 
 	private void advance(double dt) {
-		synchronized (computers) {
-			computers.keySet().forEach(c -> {
-				synchronized (c) {
-					c.advance(dt);
-				}
-			});
+		if (tickPool != null && computers.size() > 1) {
+			advanceParallel(dt);
+		} else {
+			synchronized (computers) {
+				computers.keySet().forEach(c -> {
+					synchronized (c) {
+						c.advance(dt);
+					}
+				});
+			}
 		}
 
 		pluginMgr.onTick(this, dt);
 	}
 
+	/**
+	 * Advances every computer on the tick pool, one task per computer, and waits
+	 * for all of them to finish before returning.
+	 *
+	 * The global lock is only held while taking a snapshot of the computers, as
+	 * computers may remove themselves (and so acquire the lock) from a worker
+	 * thread while being ticked.
+	 */
+	private void advanceParallel(double dt) {
+		List<Callable<Void>> tasks;
+		synchronized (computers) {
+			tasks = new ArrayList<>(computers.size());
+			for (EmulatedComputer c : computers.keySet()) {
+				tasks.add(() -> {
+					synchronized (c) {
+						c.advance(dt);
+					}
+					return null;
+				});
+			}
+		}
+
+		for (Future<Void> result : tickPool.invokeAll(tasks)) {
+			try {
+				result.get();
+			} catch (ExecutionException e) {
+				log.error("Exception while ticking computer", e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private static ForkJoinPool createTickPool(int threads) {
+		return new ForkJoinPool(threads, pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("CCEmuX tick worker " + thread.getPoolIndex());
+			return thread;
+		}, null, false);
+	}
+
 	@Override
 	public void run() {
 		running = true;
-		started = System.currentTimeMillis();
 
-		long lastTime = started;
-		double computerTickTimer = 0d;
+		if (tickScheduler == null) {
+			tickScheduler = new FixedRateTickScheduler(cfg.tickRate.get(), cfg.maxTickCatchUp.get());
+		}
 
-		while (running) {
-			long now = System.currentTimeMillis();
-			double dt = (now - lastTime) / 1000d;
+		int threads = cfg.tickThreads.get();
+		if (threads > 1) {
+			log.info("Ticking computers on {} threads", threads);
+			tickPool = createTickPool(threads);
+		}
 
-			computerTickTimer += dt;
+		tickScheduler.start();
 
-			if (computerTickTimer >= 0.05d) {
-				advance(dt);
-				computerTickTimer = 0d;
+		try {
+			while (running) {
+				try {
+					advance(tickScheduler.awaitTick());
+				} catch (InterruptedException ignored) {}
+			}
+		} finally {
+			if (tickPool != null) {
+				tickPool.shutdown();
+				tickPool = null;
 			}
-
-			lastTime = now;
-
-			try {
-				Thread.sleep(Math.max(0, 50 - (System.currentTimeMillis() - now)));
-			} catch (InterruptedException ignored) {}
 		}
 
-		log.info("Emulation stopped");
-		started = -1;
+		log.info("Emulation stopped after {} ticks ({} late, {} skipped)", tickScheduler.getTickCount(),
+			tickScheduler.getLateTicks(), tickScheduler.getSkippedTicks());
 	}
 
 	public boolean isRunning() {
@@ -212,8 +287,14 @@ public class CCEmuX implements Runnable, Emulator, IComputerEnvironment {
 		running = false;
 	}
 
+	/**
+	 * Gets the number of ticks which have been due since the emulator started,
+	 * including any which were skipped. This is used as the in-game time, so
+	 * it follows the configured tick rate.
+	 */
 	public long getTicksSinceStart() {
-		return (System.currentTimeMillis() - started) / 50;
+		TickScheduler scheduler = tickScheduler;
+		return scheduler == null ? 0 : scheduler.getTickCount() + scheduler.getSkippedTicks();
 	}
 
 	@Override
@@ -226,6 +307,20 @@ public class CCEmuX implements Runnable, Emulator, IComputerEnvironment {
 		String path = Paths.get("assets", domain, subPath).toString().replace('\\', '/');
 		if (path.startsWith("/")) path = path.substring(1);
 
+		Optional<IMount> mount = resourceMounts.get(path);
+		if (mount == null) {
+			// Plugin hooks are run outside the map, as they may create mounts themselves
+			Optional<IMount> built = Optional.ofNullable(buildResourceMount(path));
+			mount = resourceMounts.putIfAbsent(path, built);
+			if (mount == null) mount = built;
+		}
+
+		return mount.orElse(null);
+	}
+
+	private IMount buildResourceMount(String path) {
+		log.debug("Building resource mount for {}", path);
+
 		try {
 			VirtualDirectory.Builder romBuilder = new VirtualDirectory.Builder();
 			pluginMgr.onCreatingROM(this, romBuilder);
@@ -263,7 +358,17 @@ public class CCEmuX implements Runnable, Emulator, IComputerEnvironment {
 
 	@Override
 	public IWritableMount createSaveDirMount(String path, long capacity) {
-		return new FileMount(cfg.getDataDir().resolve("computer").resolve(path).toFile(), getComputerSpaceLimit());
+		FileMount mount = new FileMount(cfg.getDataDir().resolve("computer").resolve(path).toFile(), getComputerSpaceLimit());
+
+		String baseImage = cfg.computerBaseImage.get();
+		if (baseImage.isEmpty()) return mount;
+
+		try {
+			return new OverlayMount(new FileMount(cfg.getDataDir().resolve(baseImage).toFile(), 0), mount);
+		} catch (IOException e) {
+			log.error("Failed to create overlay mount for computer {}, using its files only", path, e);
+			return mount;
+		}
 	}
 
 	@Override
@@ -2,22 +2,31 @@ package net.clgd.ccemux.emulation;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.Field;
-import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.Optional;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import dan200.computercraft.api.filesystem.IWritableMount;
 import dan200.computercraft.api.peripheral.IPeripheral;
+import dan200.computercraft.core.computer.Computer;
 import dan200.computercraft.core.computer.IComputerEnvironment;
 import lombok.extern.slf4j.Slf4j;
-import lombok.val;
 import net.clgd.ccemux.api.emulation.EmulatedComputer;
 import net.clgd.ccemux.api.emulation.EmulatedTerminal;
 
@@ -26,19 +35,49 @@ import net.clgd.ccemux.api.emulation.EmulatedTerminal;
  */
 @Slf4j
 public class EmulatedComputerImpl extends EmulatedComputer {
-	private static final Field rootMountField;
-	private static final Field stateField;
-	private static final Field startRequestedField;
+	/**
+	 * Accessors for the private fields of {@link Computer}, resolved once
+	 */
+	private static final MethodHandle setRootMount;
+	private static final MethodHandle getState;
+	private static final MethodHandle getStartRequested;
+
+	/**
+	 * The {@code Off} constant of the computer's state enum
+	 */
+	private static final Object offState;
+
+	private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Runs {@link #copyFilesAsync(Iterable, String, CopyProgress)}, off the
+	 * caller's (usually UI) thread
+	 */
+	private static final ExecutorService copyExecutor = Executors.newCachedThreadPool(
+		new ThreadFactoryBuilder().setNameFormat("CCEmuX file copy %d").setDaemon(true).build());
 
 	static {
-		rootMountField = getField("m_rootMount", "root mount");
-		stateField = getField("m_state", "state");
-		startRequestedField = getField("m_startRequested", "start requested");
+		Field rootMountField = getField("m_rootMount", "root mount");
+		Field stateField = getField("m_state", "state");
+		Field startRequestedField = getField("m_startRequested", "start requested");
+
+		setRootMount = unreflect(rootMountField, true, MethodType.methodType(void.class, Computer.class, IWritableMount.class));
+		getState = unreflect(stateField, false, MethodType.methodType(Object.class, Computer.class));
+		getStartRequested = unreflect(startRequestedField, false, MethodType.methodType(boolean.class, Computer.class));
+
+		Object off = null;
+		if (stateField != null && stateField.getType().isEnum()) {
+			for (Object state : stateField.getType().getEnumConstants()) {
+				if (((Enum<?>) state).name().equals("Off")) off = state;
+			}
+		}
+		if (off == null) log.error("Failed to find computer Off state");
+		offState = off;
 	}
 
 	private static Field getField(String name, String description) {
 		try {
-			Field field = EmulatedComputer.class.getSuperclass().getDeclaredField(name);
+			Field field = Computer.class.getDeclaredField(name);
 			field.setAccessible(true);
 			return field;
 		} catch (ReflectiveOperationException e) {
@@ -47,6 +86,22 @@ public class EmulatedComputerImpl extends EmulatedComputer {
 		}
 	}
 
+	/**
+	 * Creates a getter or setter for a field, adapted to the given type so it
+	 * can be called with {@link MethodHandle#invokeExact(Object...)}
+	 */
+	private static MethodHandle unreflect(Field field, boolean setter, MethodType type) {
+		if (field == null) return null;
+
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			return (setter ? lookup.unreflectSetter(field) : lookup.unreflectGetter(field)).asType(type);
+		} catch (IllegalAccessException | WrongMethodTypeException e) {
+			log.error("Failed to access computer field " + field.getName(), e);
+			return null;
+		}
+	}
+
 	/**
 	 * A class used to create new {@link EmulatedComputer} instances
 	 *
@@ -122,13 +177,17 @@ public class EmulatedComputerImpl extends EmulatedComputer {
 					ec.setLabel(label);
 				}
 
+				if (setRootMount == null) {
+					throw new IllegalStateException("Cannot set root mount while building computer ID " + ec.getID());
+				}
+
 				try {
 					if (rootMount != null) {
-						rootMountField.set(ec, rootMount);
+						setRootMount.invokeExact((Computer) ec, rootMount);
 					} else {
-						rootMountField.set(ec, env.createSaveDirMount(Integer.toString(ec.getID()), 2 * 1024 * 1024));
+						setRootMount.invokeExact((Computer) ec, env.createSaveDirMount(Integer.toString(ec.getID()), 2 * 1024 * 1024));
 					}
-				} catch (IllegalArgumentException | IllegalAccessException e) {
+				} catch (Throwable e) {
 					throw new RuntimeException("Failed to set root mount while building computer ID " + ec.getID(), e);
 				}
 
@@ -155,6 +214,12 @@ public class EmulatedComputerImpl extends EmulatedComputer {
 
 	private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
 
+	/**
+	 * Whether this computer was shut down as of the last tick. New computers
+	 * start shut down.
+	 */
+	private boolean wasShutdown = true;
+
 	private EmulatedComputerImpl(IComputerEnvironment environment, EmulatedTerminal terminal, int id) {
 		super(environment, terminal, id);
 		this.terminal = terminal;
@@ -174,6 +239,12 @@ public class EmulatedComputerImpl extends EmulatedComputer {
 	public void advance(double dt) {
 		super.advance(dt);
 
+		boolean shutdown = isShutdown();
+		if (shutdown != wasShutdown) {
+			wasShutdown = shutdown;
+			listeners.forEach(l -> l.onShutdownChanged(shutdown));
+		}
+
 		for (int i = 0; i < 6; i++) {
 			IPeripheral peripheral = getPeripheral(i);
 			if (peripheral instanceof Listener) ((Listener) peripheral).onAdvance(dt);
@@ -184,33 +255,104 @@ public class EmulatedComputerImpl extends EmulatedComputer {
 
 	@Override
 	public void copyFiles(@Nonnull Iterable<File> files, @Nonnull String location) throws IOException {
-		val mount = this.getRootMount();
-		val base = Paths.get(location);
+		copyFiles(files, location, null);
+	}
+
+	@Nonnull
+	@Override
+	public CompletableFuture<Void> copyFilesAsync(@Nonnull Iterable<File> files, @Nonnull String location, @Nullable CopyProgress progress) {
+		CompletableFuture<Void> result = new CompletableFuture<>();
+		copyExecutor.execute(() -> {
+			try {
+				copyFiles(files, location, progress);
+				result.complete(null);
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			}
+		});
+		return result;
+	}
+
+	private void copyFiles(Iterable<File> files, String location, @Nullable CopyProgress progress) throws IOException {
+		IWritableMount mount = getRootMount();
 
-		for (val f : files) {
-			val path = base.resolve(f.getName()).toString();
+		// Find everything first, so space only needs to be checked once
+		List<String> directories = new ArrayList<>();
+		Map<String, Path> copies = new LinkedHashMap<>();
+		long[] total = { 0 };
 
-			if (f.isFile()) {
-				if (f.length() > mount.getRemainingSpace()) {
-					throw new IOException("Not enough space on computer");
+		for (File file : files) {
+			Path root = file.toPath();
+			String target = resolve(location, Paths.get(file.getName()));
+
+			Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+					directories.add(resolve(target, root.relativize(dir)));
+					return FileVisitResult.CONTINUE;
 				}
 
-				val s = mount.openForWrite(path);
-				IOUtils.copy(FileUtils.openInputStream(f), s);
-			} else {
-				mount.makeDirectory(path);
-				copyFiles(Arrays.asList(f.listFiles()), path);
+				@Override
+				public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+					if (attrs.isRegularFile()) {
+						copies.put(resolve(target, root.relativize(path)), path);
+						total[0] += attrs.size();
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+
+		if (total[0] > mount.getRemainingSpace()) {
+			throw new IOException("Not enough space on computer");
+		}
+
+		for (String directory : directories) mount.makeDirectory(directory);
+
+		byte[] buffer = new byte[COPY_BUFFER_SIZE];
+		long copied = 0;
+		if (progress != null) progress.onProgress(0, total[0]);
+
+		for (Map.Entry<String, Path> copy : copies.entrySet()) {
+			try (InputStream in = Files.newInputStream(copy.getValue()); OutputStream out = mount.openForWrite(copy.getKey())) {
+				int read;
+				while ((read = in.read(buffer)) > 0) {
+					out.write(buffer, 0, read);
+					copied += read;
+					if (progress != null) progress.onProgress(copied, total[0]);
+				}
 			}
 		}
+
+		log.debug("Copied {} files ({} bytes) to computer #{}", copies.size(), copied, getID());
+	}
+
+	/**
+	 * Appends a relative path to a location on the computer, using {@code /}
+	 * as the separator
+	 */
+	private static String resolve(String location, Path relative) {
+		StringBuilder builder = new StringBuilder(location);
+		for (Path name : relative) {
+			if (name.toString().isEmpty()) continue;
+			if (builder.length() > 0 && builder.charAt(builder.length() - 1) != '/') builder.append('/');
+			builder.append(name.toString());
+		}
+
+		// Mount paths are relative to the root
+		int start = 0;
+		while (start < builder.length() && builder.charAt(start) == '/') start++;
+		return builder.substring(start);
 	}
 
 	@Override
 	public boolean isShutdown() {
-		if (stateField != null && startRequestedField != null) {
+		if (getState != null && getStartRequested != null && offState != null) {
 			try {
 				// Is the computer off and no start has been requested
-				return stateField.get(this).toString().equals("Off") && !startRequestedField.getBoolean(this);
-			} catch (IllegalAccessException ignored) {
+				return (Object) getState.invokeExact((Computer) this) == offState
+					&& !(boolean) getStartRequested.invokeExact((Computer) this);
+			} catch (Throwable ignored) {
 			}
 		}
 
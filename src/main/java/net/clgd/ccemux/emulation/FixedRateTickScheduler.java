@@ -0,0 +1,134 @@
+package net.clgd.ccemux.emulation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A {@link TickScheduler} which ticks at a fixed rate, using a monotonic
+ * {@link Clock} (normally {@link System#nanoTime()}) and absolute deadlines so that oversleeping or a
+ * slow tick does not cause the emulator to drift.
+ *
+ * When the emulator falls behind, ticks are run back to back until it has
+ * caught up. If it falls more than {@code maxCatchUp} ticks behind then the
+ * excess ticks are dropped and counted as skipped.
+ */
+public class FixedRateTickScheduler implements TickScheduler {
+	/**
+	 * The source of time used to schedule ticks
+	 */
+	public interface Clock {
+		/**
+		 * Uses {@link System#nanoTime()}, and sleeps the current thread
+		 */
+		Clock SYSTEM = new Clock() {
+			@Override
+			public long nanoTime() {
+				return System.nanoTime();
+			}
+
+			@Override
+			public void sleep(long nanos) throws InterruptedException {
+				TimeUnit.NANOSECONDS.sleep(nanos);
+			}
+		};
+
+		long nanoTime();
+
+		void sleep(long nanos) throws InterruptedException;
+	}
+
+	private final Clock clock;
+	private final long tickNanos;
+	private final double tickLength;
+	private final int maxCatchUp;
+
+	private long nextTick;
+
+	private final AtomicLong ticks = new AtomicLong();
+	private final AtomicLong skippedTicks = new AtomicLong();
+	private final AtomicLong lateTicks = new AtomicLong();
+
+	/**
+	 * @param tickRate   The number of ticks per second
+	 * @param maxCatchUp The maximum number of overdue ticks which will be run
+	 *                   back to back before ticks start being skipped
+	 */
+	public FixedRateTickScheduler(int tickRate, int maxCatchUp) {
+		this(tickRate, maxCatchUp, Clock.SYSTEM);
+	}
+
+	/**
+	 * @param tickRate   The number of ticks per second
+	 * @param maxCatchUp The maximum number of overdue ticks which will be run
+	 *                   back to back before ticks start being skipped
+	 * @param clock      The clock to read the time from and sleep with
+	 */
+	public FixedRateTickScheduler(int tickRate, int maxCatchUp, @Nonnull Clock clock) {
+		Preconditions.checkArgument(tickRate > 0, "tickRate must be positive");
+		Preconditions.checkArgument(maxCatchUp >= 0, "maxCatchUp cannot be negative");
+
+		this.tickNanos = TimeUnit.SECONDS.toNanos(1) / tickRate;
+		this.tickLength = tickNanos / 1e9;
+		this.maxCatchUp = maxCatchUp;
+		this.clock = Preconditions.checkNotNull(clock, "clock cannot be null");
+	}
+
+	@Override
+	public void start() {
+		nextTick = clock.nanoTime() + tickNanos;
+		ticks.set(0);
+		skippedTicks.set(0);
+		lateTicks.set(0);
+	}
+
+	@Override
+	public double awaitTick() throws InterruptedException {
+		long now = clock.nanoTime();
+		long remaining = nextTick - now;
+
+		if (remaining > 0) {
+			clock.sleep(remaining);
+		} else {
+			lateTicks.incrementAndGet();
+
+			// Drop any ticks beyond what we're willing to catch up on
+			long behind = -remaining / tickNanos;
+			if (behind > maxCatchUp) {
+				long skipped = behind - maxCatchUp;
+				skippedTicks.addAndGet(skipped);
+				nextTick += skipped * tickNanos;
+			}
+		}
+
+		nextTick += tickNanos;
+		ticks.incrementAndGet();
+
+		return tickLength;
+	}
+
+	/**
+	 * The length of a single tick, in seconds
+	 */
+	public double getTickLength() {
+		return tickLength;
+	}
+
+	@Override
+	public long getTickCount() {
+		return ticks.get();
+	}
+
+	@Override
+	public long getSkippedTicks() {
+		return skippedTicks.get();
+	}
+
+	@Override
+	public long getLateTicks() {
+		return lateTicks.get();
+	}
+}
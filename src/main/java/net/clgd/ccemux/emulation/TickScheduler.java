@@ -0,0 +1,40 @@
+package net.clgd.ccemux.emulation;
+
+/**
+ * Decides when the emulator should tick, and by how much time each tick should
+ * advance computers.
+ *
+ * @see FixedRateTickScheduler
+ */
+public interface TickScheduler {
+	/**
+	 * Resets the scheduler, so that the first tick is due one tick length from now.
+	 * This is called once before the emulation loop starts.
+	 */
+	void start();
+
+	/**
+	 * Blocks until the next tick is due.
+	 *
+	 * @return The time (in seconds) the tick should advance computers by
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	double awaitTick() throws InterruptedException;
+
+	/**
+	 * The total number of ticks which have been run since {@link #start()}
+	 */
+	long getTickCount();
+
+	/**
+	 * The number of ticks which were dropped because the emulator fell too far
+	 * behind to catch up with them
+	 */
+	long getSkippedTicks();
+
+	/**
+	 * The number of ticks which were started after their deadline had already
+	 * passed
+	 */
+	long getLateTicks();
+}
@@ -29,6 +29,7 @@ import net.clgd.ccemux.api.rendering.RendererFactory;
 import net.clgd.ccemux.api.rendering.TerminalFont;
 import net.clgd.ccemux.emulation.CCEmuX;
 import net.clgd.ccemux.plugins.PluginManager;
+import net.clgd.ccemux.plugins.builtin.HeadlessPlugin;
 
 @Slf4j
 public class Launcher {
@@ -46,6 +47,10 @@ public class Launcher {
 			.desc("Sets the renderer to use. Run without a value to list all available renderers.").hasArg()
 			.optionalArg(true).argName("renderer").build());
 
+		opts.addOption(builder().longOpt("headless").desc(
+			"Runs without a display using the headless renderer, starting the given number of computers (1 by default).")
+			.hasArg().optionalArg(true).argName("count").build());
+
 		opts.addOption(builder().longOpt("plugin").desc(
 			"Used to load additional plugins not present in the default plugin directory. Value should be a path to a .jar file.")
 			.hasArg().argName("file").build());
@@ -63,6 +68,12 @@ public class Launcher {
 	private final CommandLine cli;
 	private final Path dataDir;
 
+	/**
+	 * The number of computers to start in headless mode, or 0 if not running
+	 * headless.
+	 */
+	private final int headlessComputers;
+
 	private Launcher(String args[]) {
 		// parse cli options
 		CommandLine _cli = null;
@@ -91,6 +102,27 @@ public class Launcher {
 			dataDir = OperatingSystem.get().getAppDataDir().resolve("ccemux");
 		}
 		log.info("Data directory is {}", dataDir.toString());
+
+		if (cli.hasOption("headless")) {
+			System.setProperty("java.awt.headless", "true");
+
+			int count = 1;
+			try {
+				if (cli.getOptionValue("headless") != null) count = Integer.parseInt(cli.getOptionValue("headless"));
+			} catch (NumberFormatException e) {
+				count = -1;
+			}
+
+			if (count < 1) {
+				System.err.println("Computer count must be a positive integer");
+				printHelp();
+				System.exit(1);
+			}
+
+			headlessComputers = count;
+		} else {
+			headlessComputers = 0;
+		}
 	}
 
 	private void crashMessage(Throwable e) {
@@ -212,7 +244,9 @@ public class Launcher {
 			pluginMgr.setup();
 
 			String renderer;
-			if (cli.hasOption('r') && cli.getOptionValue('r') == null) {
+			if (headlessComputers > 0) {
+				renderer = HeadlessPlugin.RENDERER_NAME;
+			} else if (cli.hasOption('r') && cli.getOptionValue('r') == null) {
 				log.info("Available rendering methods:");
 				pluginMgr.getRenderers().keySet().forEach(k -> log.info(" {}", k));
 				System.exit(0);
@@ -248,7 +282,12 @@ public class Launcher {
 			TerminalFont.loadImplicitFonts(getClass().getClassLoader());
 
 			CCEmuX emu = new CCEmuX(cfg, renderFactory, pluginMgr, getCCSource());
-			emu.createComputer();
+			if (headlessComputers > 0) {
+				log.info("Starting {} headless computers", headlessComputers);
+				for (int i = 0; i < headlessComputers; i++) emu.createComputer();
+			} else {
+				emu.createComputer();
+			}
 			emu.run();
 
 			pluginMgr.onClosing(emu);
@@ -0,0 +1,110 @@
+package net.clgd.ccemux.plugins;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import lombok.Getter;
+import net.clgd.ccemux.api.plugins.HookTimings;
+import net.clgd.ccemux.api.plugins.Plugin;
+import net.clgd.ccemux.api.plugins.hooks.Hook;
+
+/**
+ * Timings for the hooks of a single type registered by a plugin, and the
+ * state of the slow hook watchdog for them.
+ */
+public final class HookStats implements HookTimings {
+	/**
+	 * The number of consecutive calls over budget before the watchdog acts
+	 */
+	static final int SLOW_LIMIT = 10;
+
+	@Getter
+	private final Plugin plugin;
+
+	@Getter
+	private final Class<? extends Hook> hookType;
+
+	/**
+	 * Whether the watchdog only warns about these hooks, rather than disabling
+	 * them, as they are part of the emulator itself
+	 */
+	@Getter
+	private final boolean exempt;
+
+	@Getter
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	private final AtomicLong slowCalls = new AtomicLong();
+	private final AtomicInteger slowStreak = new AtomicInteger();
+	private volatile boolean disabled = false;
+
+	HookStats(@Nonnull Plugin plugin, @Nonnull Class<? extends Hook> hookType, boolean exempt) {
+		this.plugin = plugin;
+		this.hookType = hookType;
+		this.exempt = exempt;
+	}
+
+	/**
+	 * Records a call to these hooks
+	 *
+	 * @param nanos  How long the call took
+	 * @param budget How long a call may take before it is slow, or 0 if calls are
+	 *               never slow
+	 * @return Whether these hooks have just been slow {@link #SLOW_LIMIT} times in
+	 * a row
+	 */
+	boolean record(long nanos, long budget) {
+		histogram.record(nanos);
+		if (budget <= 0) return false;
+
+		if (nanos > budget) {
+			slowCalls.incrementAndGet();
+			return slowStreak.incrementAndGet() == SLOW_LIMIT;
+		} else {
+			slowStreak.set(0);
+			return false;
+		}
+	}
+
+	@Override
+	public long getCount() {
+		return histogram.getCount();
+	}
+
+	@Override
+	public double getMean() {
+		return histogram.getMean();
+	}
+
+	@Override
+	public long getMax() {
+		return histogram.getMax();
+	}
+
+	@Override
+	public long getValueAtPercentile(double percentile) {
+		return histogram.getValueAtPercentile(percentile);
+	}
+
+	@Override
+	public long getSlowCalls() {
+		return slowCalls.get();
+	}
+
+	@Override
+	public boolean isDisabled() {
+		return disabled;
+	}
+
+	void disable() {
+		disabled = true;
+	}
+
+	@Override
+	public void enable() {
+		slowStreak.set(0);
+		disabled = false;
+	}
+}
@@ -0,0 +1,87 @@
+package net.clgd.ccemux.plugins;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in nanoseconds, in the style of HdrHistogram.
+ * Values are recorded into log-linear buckets (8 per power of two, so within
+ * 12.5% of the true value) without allocating, and may be recorded from any
+ * thread.
+ */
+public final class LatencyHistogram {
+	/**
+	 * Values below this are recorded exactly
+	 */
+	private static final int LINEAR = 16;
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = LINEAR + (64 - 4) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	static int bucket(long value) {
+		if (value < LINEAR) return (int) Math.max(value, 0);
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return LINEAR + (exponent - 4) * SUB_BUCKETS + sub;
+	}
+
+	static long lowestValue(int bucket) {
+		if (bucket < LINEAR) return bucket;
+
+		int exponent = (bucket - LINEAR) / SUB_BUCKETS + 4;
+		int sub = (bucket - LINEAR) % SUB_BUCKETS;
+		return (long) (SUB_BUCKETS | sub) << (exponent - SUB_BITS);
+	}
+
+	/**
+	 * Records a duration
+	 */
+	public void record(long nanos) {
+		counts.incrementAndGet(bucket(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+		max.accumulateAndGet(nanos, Math::max);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long count = this.count.get();
+		return count == 0 ? 0 : (double) total.get() / count;
+	}
+
+	/**
+	 * Estimates the value at the given percentile, as the highest value in the
+	 * bucket containing it
+	 *
+	 * @param percentile The percentile, between 0 and 100
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long count = this.count.get();
+		if (count == 0) return 0;
+
+		long target = Math.max(1, (long) Math.ceil(count * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= target) {
+				long highest = i + 1 < BUCKETS ? lowestValue(i + 1) - 1 : Long.MAX_VALUE;
+				return Math.min(highest, max.get());
+			}
+		}
+
+		return max.get();
+	}
+}
@@ -7,6 +7,8 @@ import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import net.clgd.ccemux.api.config.ConfigProperty;
@@ -35,6 +37,22 @@ public class PluginManager implements Closing, CreatingComputer, CreatingROM, Co
 		}
 	}
 
+	/**
+	 * The hook types which are dispatched by this manager
+	 */
+	private static final List<Class<? extends Hook>> HOOK_TYPES = Arrays.asList(Closing.class, CreatingComputer.class,
+			CreatingROM.class, ComputerCreated.class, ComputerRemoved.class, InitializationCompleted.class,
+			RendererCreated.class, Tick.class);
+
+	private static final Hook[] NO_HOOKS = new Hook[0];
+	private static final HookStats[] NO_STATS = new HookStats[0];
+
+	/**
+	 * The package of the plugins which ship with the emulator. Their hooks are
+	 * never disabled by the watchdog, as the emulator relies on them.
+	 */
+	private static final String BUILTIN_PACKAGE = "net.clgd.ccemux.plugins.builtin.";
+
 	private final EmuConfig cfg;
 
 	private final List<PluginCandidate> candidates = new ArrayList<>();
@@ -42,6 +60,15 @@ public class PluginManager implements Closing, CreatingComputer, CreatingROM, Co
 	private final Map<String, RendererFactory<?>> renderers = new HashMap<>();
 	private final Map<String, PeripheralFactory<?>> peripherals = new HashMap<>();
 
+	/**
+	 * The hooks of every enabled plugin by type, and the timings for each hook.
+	 * These are built by {@link #setup()}, so hooks registered after that are
+	 * never called.
+	 */
+	private Map<Class<? extends Hook>, Hook[]> dispatch = Collections.emptyMap();
+	private Map<Class<? extends Hook>, HookStats[]> timings = Collections.emptyMap();
+	private List<HookStats> stats = Collections.emptyList();
+
 	public PluginManager(EmuConfig cfg) {
 		this.cfg = cfg;
 	}
@@ -85,23 +112,123 @@ public class PluginManager implements Closing, CreatingComputer, CreatingROM, Co
 				iterator.remove();
 			}
 		}
+
+		buildDispatch();
 	}
 
-	private <T extends Hook> void doHooks(Class<T> cls, Consumer<T> f) {
-		for (Plugin p : enabled) {
-			for (T h : p.getHooks(cls)) {
-				try {
-					f.accept(h);
-				} catch (Exception e) {
-					log.warn("Exception while calling hook [{}] for plugin [{}]", cls.getName(), p, e);
+	/**
+	 * Collects the hooks of every enabled plugin, so dispatching a hook is a
+	 * single lookup and array loop
+	 */
+	private void buildDispatch() {
+		ImmutableMap.Builder<Class<? extends Hook>, Hook[]> table = ImmutableMap.builder();
+		ImmutableMap.Builder<Class<? extends Hook>, HookStats[]> timingTable = ImmutableMap.builder();
+		ImmutableList.Builder<HookStats> allStats = ImmutableList.builder();
+
+		for (Class<? extends Hook> type : HOOK_TYPES) {
+			List<Hook> hooks = new ArrayList<>();
+			List<HookStats> timings = new ArrayList<>();
+			for (Plugin p : enabled) {
+				Set<? extends Hook> pluginHooks = p.getHooks(type);
+				if (pluginHooks.isEmpty()) continue;
+
+				// Hooks of the same type from one plugin share their timings
+				HookStats stats = new HookStats(p, type, p.getClass().getName().startsWith(BUILTIN_PACKAGE));
+				allStats.add(stats);
+				for (Hook h : pluginHooks) {
+					hooks.add(h);
+					timings.add(stats);
 				}
 			}
+
+			table.put(type, hooks.toArray(NO_HOOKS));
+			timingTable.put(type, timings.toArray(NO_STATS));
+		}
+
+		dispatch = table.build();
+		timings = timingTable.build();
+		stats = allStats.build();
+	}
+
+	private Hook[] getHooks(Class<? extends Hook> cls) {
+		Hook[] hooks = dispatch.get(cls);
+		return hooks == null ? NO_HOOKS : hooks;
+	}
+
+	private HookStats[] getTimings(Class<? extends Hook> cls) {
+		HookStats[] stats = timings.get(cls);
+		return stats == null ? NO_STATS : stats;
+	}
+
+	@Nonnull
+	@Override
+	public List<HookStats> getHookTimings() {
+		return stats;
+	}
+
+	/**
+	 * Gets the slow hook budget in nanoseconds, or 0 if the watchdog is disabled
+	 */
+	private long getHookBudget() {
+		return (long) (cfg.hookBudget.get() * 1e6);
+	}
+
+	private void hookFailed(HookStats stats, Exception e) {
+		log.warn("Exception while calling hook [{}] for plugin [{}]", stats.getHookType().getName(), stats.getPlugin(), e);
+	}
+
+	private void hookFinished(HookStats stats, long start, long budget) {
+		if (!stats.record(System.nanoTime() - start, budget)) return;
+
+		if (cfg.disableSlowHooks.get() && !stats.isExempt()) {
+			stats.disable();
+			log.warn("Disabling hook [{}] for plugin [{}]: it took longer than {}ms {} times in a row. "
+					+ "It can be enabled again with ccemux.enableHooks()",
+					stats.getHookType().getName(), stats.getPlugin(), cfg.hookBudget.get(), HookStats.SLOW_LIMIT);
+		} else {
+			log.warn("Hook [{}] for plugin [{}] took longer than {}ms {} times in a row (mean {}ms)",
+					stats.getHookType().getName(), stats.getPlugin(), cfg.hookBudget.get(), HookStats.SLOW_LIMIT,
+					String.format("%.2f", stats.getHistogram().getMean() / 1e6));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Hook> void doHooks(Class<T> cls, Consumer<T> f) {
+		Hook[] hooks = getHooks(cls);
+		HookStats[] timings = getTimings(cls);
+		long budget = getHookBudget();
+
+		for (int i = 0; i < hooks.length; i++) {
+			if (timings[i].isDisabled()) continue;
+
+			long start = System.nanoTime();
+			try {
+				f.accept((T) hooks[i]);
+			} catch (Exception e) {
+				hookFailed(timings[i], e);
+			}
+			hookFinished(timings[i], start, budget);
 		}
 	}
 
 	@Override
 	public void onTick(@Nonnull Emulator emu, double dt) {
-		doHooks(Tick.class, h -> h.onTick(emu, dt));
+		Hook[] hooks = getHooks(Tick.class);
+		HookStats[] timings = getTimings(Tick.class);
+		long budget = getHookBudget();
+
+		// Called every tick, so avoid allocating a lambda
+		for (int i = 0; i < hooks.length; i++) {
+			if (timings[i].isDisabled()) continue;
+
+			long start = System.nanoTime();
+			try {
+				((Tick) hooks[i]).onTick(emu, dt);
+			} catch (Exception e) {
+				hookFailed(timings[i], e);
+			}
+			hookFinished(timings[i], start, budget);
+		}
 	}
 
 	@Override
@@ -4,13 +4,12 @@ import java.awt.Desktop;
 import java.awt.Toolkit;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
-import java.io.IOException;
+import java.net.URL;
 import java.nio.file.Paths;
 import java.util.*;
 
 import javax.annotation.Nonnull;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
 
 import com.google.auto.service.AutoService;
@@ -23,9 +22,11 @@ import lombok.extern.slf4j.Slf4j;
 import net.clgd.ccemux.api.config.Group;
 import net.clgd.ccemux.api.emulation.EmulatedComputer;
 import net.clgd.ccemux.api.emulation.Emulator;
+import net.clgd.ccemux.api.emulation.filesystem.VirtualDirectory;
 import net.clgd.ccemux.api.emulation.filesystem.VirtualFile;
 import net.clgd.ccemux.api.peripheral.Peripheral;
 import net.clgd.ccemux.api.peripheral.PeripheralFactory;
+import net.clgd.ccemux.api.plugins.HookTimings;
 import net.clgd.ccemux.api.plugins.Plugin;
 import net.clgd.ccemux.api.plugins.PluginManager;
 import net.clgd.ccemux.api.plugins.hooks.ComputerCreated;
@@ -42,11 +43,17 @@ public class CCEmuXAPI extends Plugin {
 
 	private static class API implements ILuaAPI {
 		private final String name;
-		private final Map<String, APIMethod> methods = new LinkedHashMap<>();
 
-		public API(Emulator emu, EmulatedComputer computer, String name) {
+		/**
+		 * The methods of this API, indexed by method number
+		 */
+		private final String[] methodNames;
+		private final APIMethod[] methods;
+
+		public API(Emulator emu, EmulatedComputer computer, String name, PluginManager plugins) {
 			this.name = name;
 
+			Map<String, APIMethod> methods = new LinkedHashMap<>();
 			methods.put("getVersion", o -> new Object[] { emu.getEmulatorVersion() });
 
 			methods.put("closeEmu", o -> {
@@ -129,17 +136,53 @@ public class CCEmuXAPI extends Plugin {
 				computer.setPeripheral(sideId, null);
 				return null;
 			});
+
+			methods.put("getHookStats", o -> {
+				Map<Integer, Object> result = new HashMap<>();
+				int index = 1;
+				for (HookTimings timings : plugins.getHookTimings()) {
+					Map<String, Object> entry = new HashMap<>();
+					entry.put("plugin", timings.getPlugin().getName());
+					entry.put("hook", timings.getHookType().getSimpleName());
+					entry.put("count", timings.getCount());
+					entry.put("mean", timings.getMean() / 1e6);
+					entry.put("p50", timings.getValueAtPercentile(50) / 1e6);
+					entry.put("p99", timings.getValueAtPercentile(99) / 1e6);
+					entry.put("max", timings.getMax() / 1e6);
+					entry.put("slow", timings.getSlowCalls());
+					entry.put("disabled", timings.isDisabled());
+					result.put(index++, entry);
+				}
+
+				return new Object[] { result };
+			});
+
+			methods.put("enableHooks", o -> {
+				int enabled = 0;
+				for (HookTimings timings : plugins.getHookTimings()) {
+					if (timings.isDisabled()) {
+						timings.enable();
+						enabled++;
+					}
+				}
+
+				return new Object[] { enabled };
+			});
+
+			methodNames = methods.keySet().toArray(new String[0]);
+			this.methods = methods.values().toArray(new APIMethod[0]);
 		}
 
 		@Nonnull
 		@Override
 		public String[] getMethodNames() {
-			return methods.keySet().toArray(new String[] {});
+			return methodNames;
 		}
 
 		@Override
 		public Object[] callMethod(@Nonnull ILuaContext context, int method, @Nonnull Object[] arguments) throws LuaException {
-			return new ArrayList<>(methods.values()).get(method).accept(arguments);
+			if (method < 0 || method >= methods.length) throw new LuaException("Method index out of range");
+			return methods[method].accept(arguments);
 		}
 
 		@Override
@@ -190,21 +233,23 @@ public class CCEmuXAPI extends Plugin {
 
 	@Override
 	public void setup(@Nonnull PluginManager manager) {
-		registerHook((ComputerCreated) (emu, computer) -> computer.addAPI(new API(emu, computer, "ccemux")));
+		registerHook((ComputerCreated) (emu, computer) -> computer.addAPI(new API(emu, computer, "ccemux", manager)));
 
 		registerHook((CreatingROM) (emu, romBuilder) -> {
-			try {
-				romBuilder.addEntry(Paths.get("programs/emu.lua"), new VirtualFile(
-					IOUtils.toByteArray(CCEmuXAPI.class.getResourceAsStream("/rom/emu_program.lua"))));
-
-				romBuilder.addEntry(Paths.get("help/emu.txt"), new VirtualFile(
-					IOUtils.toByteArray(CCEmuXAPI.class.getResourceAsStream("/rom/emu_help.txt"))));
-
-				romBuilder.addEntry(Paths.get("autorun/emu.lua"), new VirtualFile(
-					IOUtils.toByteArray(CCEmuXAPI.class.getResourceAsStream("/rom/emu_completion.lua"))));
-			} catch (IOException e) {
-				log.error("Failed to register ROM entries", e);
-			}
+			// These are loaded from the jar when first read
+			addResource(romBuilder, "programs/emu.lua", "/rom/emu_program.lua");
+			addResource(romBuilder, "help/emu.txt", "/rom/emu_help.txt");
+			addResource(romBuilder, "autorun/emu.lua", "/rom/emu_completion.lua");
 		});
 	}
+
+	private static void addResource(VirtualDirectory.Builder romBuilder, String path, String resource) {
+		URL url = CCEmuXAPI.class.getResource(resource);
+		if (url == null) {
+			log.error("Failed to register ROM entry {}: missing resource {}", path, resource);
+			return;
+		}
+
+		romBuilder.addEntry(Paths.get(path), new VirtualFile(url));
+	}
 }
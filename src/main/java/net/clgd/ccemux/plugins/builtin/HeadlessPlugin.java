@@ -0,0 +1,53 @@
+package net.clgd.ccemux.plugins.builtin;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+
+import javax.annotation.Nonnull;
+
+import com.google.auto.service.AutoService;
+
+import net.clgd.ccemux.api.plugins.Plugin;
+import net.clgd.ccemux.api.plugins.PluginManager;
+import net.clgd.ccemux.rendering.headless.HeadlessRenderer;
+
+@AutoService(Plugin.class)
+public class HeadlessPlugin extends Plugin {
+	public static final String RENDERER_NAME = "Headless";
+
+	@Nonnull
+	@Override
+	public String getName() {
+		return "Headless Renderer";
+	}
+
+	@Nonnull
+	@Override
+	public String getDescription() {
+		return "A renderer which draws nothing and accepts no input, for running computers without a display.";
+	}
+
+	@Nonnull
+	@Override
+	public Optional<String> getVersion() {
+		return Optional.empty();
+	}
+
+	@Nonnull
+	@Override
+	public Collection<String> getAuthors() {
+		return Collections.singleton("CLGD");
+	}
+
+	@Nonnull
+	@Override
+	public Optional<String> getWebsite() {
+		return Optional.empty();
+	}
+
+	@Override
+	public void setup(@Nonnull PluginManager manager) {
+		manager.addRenderer(RENDERER_NAME, (computer, cfg) -> new HeadlessRenderer(computer));
+	}
+}
@@ -8,12 +8,19 @@ import javax.annotation.Nonnull;
 
 import com.google.auto.service.AutoService;
 
+import net.clgd.ccemux.api.config.ConfigProperty;
+import net.clgd.ccemux.api.config.Group;
 import net.clgd.ccemux.api.plugins.Plugin;
 import net.clgd.ccemux.api.plugins.PluginManager;
+import net.clgd.ccemux.api.plugins.hooks.Closing;
 import net.clgd.ccemux.rendering.tror.TRoRRenderer;
+import net.clgd.ccemux.rendering.tror.TRoRServer;
 
 @AutoService(Plugin.class)
 public class TRoRPlugin extends Plugin {
+	private TRoRConfig config;
+	private TRoRServer server;
+
 	@Nonnull
 	@Override
 	public String getName() {
@@ -23,7 +30,8 @@ public class TRoRPlugin extends Plugin {
 	@Nonnull
 	@Override
 	public String getDescription() {
-		return "A CPU-based renderer which reads from stdin and writes to stdout using the TRoR protocol.";
+		return "A CPU-based renderer which reads from stdin and writes to stdout, or serves clients over TCP, "
+			+ "using the TRoR protocol.";
 	}
 
 	@Nonnull
@@ -44,8 +52,68 @@ public class TRoRPlugin extends Plugin {
 		return Optional.empty();
 	}
 
+	@Override
+	public void configSetup(@Nonnull Group group) {
+		config = new TRoRConfig(group);
+	}
+
 	@Override
 	public void setup(@Nonnull PluginManager manager) {
-		manager.addRenderer("TRoR", TRoRRenderer::new);
+		manager.addRenderer("TRoR", (computer, cfg) -> new TRoRRenderer(computer, cfg, config, getServer()));
+
+		registerHook((Closing) emu -> {
+			synchronized (this) {
+				if (server != null) {
+					server.close();
+					server = null;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Gets the TRoR server, starting it if needed, or {@code null} if it is disabled
+	 */
+	private synchronized TRoRServer getServer() {
+		int port = config.port.get();
+		if (port <= 0) return null;
+
+		if (server == null) {
+			try {
+				server = new TRoRServer(config.host.get(), port);
+			} catch (Exception e) {
+				throw new RuntimeException("Failed to start TRoR server on port " + port, e);
+			}
+		}
+
+		return server;
+	}
+
+	public static class TRoRConfig {
+		public final ConfigProperty<Boolean> batch;
+		public final ConfigProperty<Boolean> binary;
+		public final ConfigProperty<String> host;
+		public final ConfigProperty<Integer> port;
+
+		public TRoRConfig(Group group) {
+			batch = group.property("batch", boolean.class, false)
+					.setName("Batch output")
+					.setDescription("Collect terminal changes and send them as a single frame once per tick, "
+						+ "rather than sending every change as it happens.");
+
+			binary = group.property("binary", boolean.class, false)
+					.setName("Binary output")
+					.setDescription("Send each message as a length-prefixed binary record instead of a line "
+						+ "of text.");
+
+			host = group.property("host", String.class, "127.0.0.1")
+					.setName("Server address")
+					.setDescription("The address the TRoR server listens on.");
+
+			port = group.property("port", int.class, 0)
+					.setName("Server port")
+					.setDescription("Serve TRoR to any number of clients on this TCP port, instead of using stdin "
+						+ "and stdout. Set to 0 to disable the server.");
+		}
 	}
 }
@@ -11,6 +11,7 @@ import net.clgd.ccemux.api.config.ConfigProperty;
 import net.clgd.ccemux.api.config.Group;
 import net.clgd.ccemux.api.plugins.Plugin;
 import net.clgd.ccemux.api.plugins.PluginManager;
+import net.clgd.ccemux.api.plugins.hooks.Tick;
 
 @AutoService(Plugin.class)
 public class DefaultPeripheralsPlugin extends Plugin {
@@ -57,6 +58,9 @@ public class DefaultPeripheralsPlugin extends Plugin {
 	@Override
 	public void setup(@Nonnull PluginManager manager) {
 		manager.addPeripheral("wireless_modem", (computer, cfg) -> new WirelessModemPeripheral());
+		manager.addPeripheral("wired_modem", (computer, cfg) -> new WiredModemPeripheral(computer));
 		manager.addPeripheral("disk_drive", (computer, cfg) -> new DiskDrivePeripheral(cfg.getDataDir(), diskCapacity));
+
+		registerHook((Tick) (emu, dt) -> WirelessModemPeripheral.getNetwork().deliver());
 	}
 }
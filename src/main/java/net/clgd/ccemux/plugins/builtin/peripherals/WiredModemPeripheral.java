@@ -0,0 +1,298 @@
+package net.clgd.ccemux.plugins.builtin.peripherals;
+
+import static dan200.computercraft.core.apis.ArgumentHelper.getString;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import dan200.computercraft.api.lua.ILuaContext;
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.api.peripheral.IComputerAccess;
+import dan200.computercraft.core.apis.ArgumentHelper;
+import net.clgd.ccemux.api.config.ConfigProperty;
+import net.clgd.ccemux.api.config.Group;
+import net.clgd.ccemux.api.emulation.EmulatedComputer;
+import net.clgd.ccemux.api.peripheral.Peripheral;
+
+/**
+ * Emulates ComputerCraft's wired modem. Modems join a named network segment,
+ * and can exchange messages with, and remotely control the computers of, the
+ * other modems on the same segment.
+ *
+ * @see dan200.computercraft.shared.peripheral.modem.WiredModemPeripheral
+ */
+public class WiredModemPeripheral implements Peripheral {
+	/**
+	 * The peripheral the host computer appears as to other members of the
+	 * network
+	 */
+	private final Peripheral remote;
+
+	private volatile IComputerAccess computer = null;
+	private final Set<Integer> channels = new HashSet<>();
+	private WiredNetwork network = null;
+
+	private ConfigProperty<String> segment;
+
+	public WiredModemPeripheral(@Nonnull EmulatedComputer host) {
+		this.remote = new RemoteComputer(host);
+	}
+
+	@Override
+	public void configSetup(@Nonnull Group group) {
+		segment = group.property("network", String.class, "default")
+			.setName("Network")
+			.setDescription("The network segment this modem is connected to. Modems can only communicate with "
+				+ "others on the same segment.");
+
+		segment.addListener((oldV, newV) -> reconnect());
+	}
+
+	void receive(int channel, int replyChannel, Object payload) {
+		IComputerAccess computer = this.computer;
+		if (computer != null) {
+			computer.queueEvent("modem_message", new Object[] { computer.getAttachmentName(), channel, replyChannel, payload });
+		}
+	}
+
+	void remoteAttached(@Nonnull String name) {
+		IComputerAccess computer = this.computer;
+		if (computer != null) computer.queueEvent("peripheral", new Object[] { name });
+	}
+
+	void remoteDetached(@Nonnull String name) {
+		IComputerAccess computer = this.computer;
+		if (computer != null) computer.queueEvent("peripheral_detach", new Object[] { name });
+	}
+
+	@Nonnull
+	@Override
+	public String getType() {
+		return "modem";
+	}
+
+	@Nonnull
+	@Override
+	public String[] getMethodNames() {
+		return new String[] {
+			"open",
+			"isOpen",
+			"close",
+			"closeAll",
+			"transmit",
+			"isWireless",
+			"getNamesRemote",
+			"isPresentRemote",
+			"getTypeRemote",
+			"getMethodsRemote",
+			"callRemote",
+		};
+	}
+
+	private static int parseChannel(Object[] arguments, int index) throws LuaException {
+		int channel = ArgumentHelper.getInt(arguments, index);
+		if (channel >= 0 && channel <= 65535) {
+			return channel;
+		} else {
+			throw new LuaException("Expected number in range 0-65535");
+		}
+	}
+
+	private Peripheral getRemote(String name) {
+		WiredNetwork network;
+		synchronized (this) {
+			network = this.network;
+		}
+
+		if (network == null) return null;
+		WiredModemPeripheral modem = network.getMembers().get(name);
+		return modem == null || modem == this ? null : modem.remote;
+	}
+
+	@Override
+	public Object[] callMethod(@Nonnull IComputerAccess computer, @Nonnull ILuaContext context, int method, @Nonnull Object[] arguments) throws LuaException, InterruptedException {
+		switch (method) {
+			case 0: { // open
+				int channel = parseChannel(arguments, 0);
+				synchronized (this) {
+					if (!channels.contains(channel)) {
+						if (channels.size() >= 128) {
+							throw new LuaException("Too many open channels");
+						}
+
+						channels.add(channel);
+						if (network != null) network.setChannels(this, channels);
+					}
+				}
+
+				return null;
+			}
+			case 1: { // isOpen
+				int channel = parseChannel(arguments, 0);
+				synchronized (this) {
+					return new Object[] { channels.contains(channel) };
+				}
+			}
+			case 2: { // close
+				int channel = parseChannel(arguments, 0);
+				synchronized (this) {
+					if (channels.remove(channel) && network != null) network.setChannels(this, channels);
+				}
+
+				return null;
+			}
+			case 3: // closeAll
+				synchronized (this) {
+					if (!channels.isEmpty()) {
+						channels.clear();
+						if (network != null) network.setChannels(this, channels);
+					}
+				}
+
+				return null;
+			case 4: { // transmit
+				int channel = parseChannel(arguments, 0);
+				int replyChannel = parseChannel(arguments, 1);
+				Object payload = arguments.length >= 3 ? arguments[2] : null;
+
+				WiredNetwork network;
+				synchronized (this) {
+					network = this.network;
+				}
+
+				if (network != null) network.transmit(this, channel, replyChannel, payload);
+				return null;
+			}
+			case 5: // isWireless
+				return new Object[] { false };
+			case 6: { // getNamesRemote
+				WiredNetwork network;
+				synchronized (this) {
+					network = this.network;
+				}
+
+				Map<Object, Object> names = new HashMap<>();
+				if (network != null) {
+					int i = 1;
+					for (Map.Entry<String, WiredModemPeripheral> member : network.getMembers().entrySet()) {
+						if (member.getValue() != this) names.put(i++, member.getKey());
+					}
+				}
+
+				return new Object[] { names };
+			}
+			case 7: // isPresentRemote
+				return new Object[] { getRemote(getString(arguments, 0)) != null };
+			case 8: { // getTypeRemote
+				Peripheral remote = getRemote(getString(arguments, 0));
+				return remote == null ? null : new Object[] { remote.getType() };
+			}
+			case 9: { // getMethodsRemote
+				Peripheral remote = getRemote(getString(arguments, 0));
+				if (remote == null) return null;
+
+				Map<Object, Object> methods = new HashMap<>();
+				String[] names = remote.getMethodNames();
+				for (int i = 0; i < names.length; i++) methods.put(i + 1, names[i]);
+				return new Object[] { methods };
+			}
+			case 10: { // callRemote
+				String name = getString(arguments, 0);
+				String methodName = getString(arguments, 1);
+
+				Peripheral remote = getRemote(name);
+				if (remote == null) throw new LuaException("No peripheral: " + name);
+
+				int index = Arrays.asList(remote.getMethodNames()).indexOf(methodName);
+				if (index < 0) throw new LuaException("No such method " + methodName);
+
+				return remote.callMethod(computer, context, index, Arrays.copyOfRange(arguments, 2, arguments.length));
+			}
+			default:
+				return null;
+		}
+	}
+
+	private synchronized void reconnect() {
+		if (computer == null) return;
+
+		if (network != null) network.leave(this);
+		network = WiredNetwork.join(segment.get(), this, channels);
+	}
+
+	@Override
+	public synchronized void attach(@Nonnull IComputerAccess computer) {
+		this.computer = computer;
+		network = WiredNetwork.join(segment.get(), this, channels);
+	}
+
+	@Override
+	public synchronized void detach(@Nonnull IComputerAccess computer) {
+		if (network != null) {
+			network.leave(this);
+			network = null;
+		}
+
+		channels.clear();
+		this.computer = null;
+	}
+
+	/**
+	 * Exposes a computer to other members of a wired network, as ComputerCraft
+	 * does for computers attached to a wired modem.
+	 */
+	private static final class RemoteComputer implements Peripheral {
+		private final EmulatedComputer computer;
+
+		RemoteComputer(EmulatedComputer computer) {
+			this.computer = computer;
+		}
+
+		@Nonnull
+		@Override
+		public String getType() {
+			return "computer";
+		}
+
+		@Nonnull
+		@Override
+		public String[] getMethodNames() {
+			return new String[] {
+				"turnOn",
+				"shutdown",
+				"reboot",
+				"getID",
+				"isOn",
+				"getLabel",
+			};
+		}
+
+		@Override
+		public Object[] callMethod(@Nonnull IComputerAccess access, @Nonnull ILuaContext context, int method, @Nonnull Object[] arguments) {
+			switch (method) {
+				case 0: // turnOn
+					computer.turnOn();
+					return null;
+				case 1: // shutdown
+					computer.shutdown();
+					return null;
+				case 2: // reboot
+					computer.reboot();
+					return null;
+				case 3: // getID
+					return new Object[] { computer.getID() };
+				case 4: // isOn
+					return new Object[] { computer.isOn() };
+				case 5: // getLabel
+					return new Object[] { computer.getLabel() };
+				default:
+					return null;
+			}
+		}
+	}
+}
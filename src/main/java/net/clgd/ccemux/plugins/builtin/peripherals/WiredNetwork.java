@@ -0,0 +1,162 @@
+package net.clgd.ccemux.plugins.builtin.peripherals;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A named segment of wired network, which wired modems can join.
+ *
+ * Each segment precomputes which of its members are listening on each
+ * channel, so transmitting only visits the modems on the same segment which
+ * can receive the message. Segments only exist while they have members.
+ */
+final class WiredNetwork {
+	/**
+	 * The segments with members, by name. When both are needed, this is locked
+	 * before a segment.
+	 */
+	private static final Map<String, WiredNetwork> segments = new HashMap<>();
+
+	/**
+	 * Adds a modem to the segment with the given name, creating it if needed
+	 *
+	 * @return The segment the modem joined
+	 */
+	@Nonnull
+	static WiredNetwork join(@Nonnull String name, @Nonnull WiredModemPeripheral modem, @Nonnull Set<Integer> channels) {
+		synchronized (segments) {
+			WiredNetwork network = segments.computeIfAbsent(name, WiredNetwork::new);
+			network.add(modem, channels);
+			return network;
+		}
+	}
+
+	private static final class Member {
+		final String name;
+		Set<Integer> channels;
+
+		Member(String name, Set<Integer> channels) {
+			this.name = name;
+			this.channels = channels;
+		}
+	}
+
+	private final String name;
+
+	/**
+	 * The remote name and open channels of each member
+	 */
+	private final Map<WiredModemPeripheral, Member> members = new LinkedHashMap<>();
+
+	/**
+	 * Used to give each member a unique remote name, even when one computer
+	 * has several modems on this segment
+	 */
+	private int nextName = 0;
+
+	/**
+	 * Snapshots of the members by remote name, and the members listening on
+	 * each channel. These are rebuilt whenever a member changes.
+	 */
+	private volatile Map<String, WiredModemPeripheral> byName = Collections.emptyMap();
+	private volatile Map<Integer, WiredModemPeripheral[]> receivers = Collections.emptyMap();
+
+	private WiredNetwork(String name) {
+		this.name = name;
+	}
+
+	@Nonnull
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * Adds a modem to this segment, notifying it and the existing members of
+	 * the peripherals which are now visible.
+	 */
+	private synchronized void add(@Nonnull WiredModemPeripheral modem, @Nonnull Set<Integer> channels) {
+		if (members.containsKey(modem)) return;
+
+		String remoteName = "computer_" + nextName++;
+		for (Map.Entry<WiredModemPeripheral, Member> member : members.entrySet()) {
+			member.getKey().remoteAttached(remoteName);
+			modem.remoteAttached(member.getValue().name);
+		}
+
+		members.put(modem, new Member(remoteName, new HashSet<>(channels)));
+		rebuild();
+	}
+
+	/**
+	 * Removes a modem from this segment, notifying the remaining members. The
+	 * segment is removed once its last member leaves.
+	 */
+	void leave(@Nonnull WiredModemPeripheral modem) {
+		synchronized (segments) {
+			synchronized (this) {
+				Member removed = members.remove(modem);
+				if (removed == null) return;
+
+				for (WiredModemPeripheral member : members.keySet()) member.remoteDetached(removed.name);
+				rebuild();
+
+				if (members.isEmpty()) segments.remove(name, this);
+			}
+		}
+	}
+
+	/**
+	 * Updates the channels a member is listening on
+	 */
+	synchronized void setChannels(@Nonnull WiredModemPeripheral modem, @Nonnull Set<Integer> channels) {
+		Member member = members.get(modem);
+		if (member != null) {
+			member.channels = new HashSet<>(channels);
+			rebuild();
+		}
+	}
+
+	private void rebuild() {
+		Map<String, WiredModemPeripheral> byName = new LinkedHashMap<>();
+		Map<Integer, Set<WiredModemPeripheral>> listeners = new HashMap<>();
+		for (Map.Entry<WiredModemPeripheral, Member> member : members.entrySet()) {
+			byName.put(member.getValue().name, member.getKey());
+			for (int channel : member.getValue().channels) {
+				listeners.computeIfAbsent(channel, c -> new HashSet<>()).add(member.getKey());
+			}
+		}
+
+		Map<Integer, WiredModemPeripheral[]> receivers = new HashMap<>();
+		listeners.forEach((channel, modems) -> receivers.put(channel, modems.toArray(new WiredModemPeripheral[0])));
+
+		this.byName = Collections.unmodifiableMap(byName);
+		this.receivers = receivers;
+	}
+
+	/**
+	 * Sends a message to every other member listening on the given channel
+	 */
+	void transmit(@Nonnull WiredModemPeripheral sender, int channel, int replyChannel, @Nullable Object payload) {
+		WiredModemPeripheral[] receivers = this.receivers.get(channel);
+		if (receivers == null) return;
+
+		for (WiredModemPeripheral receiver : receivers) {
+			if (receiver != sender) receiver.receive(channel, replyChannel, payload);
+		}
+	}
+
+	/**
+	 * Gets the members of this segment, by their remote name
+	 */
+	@Nonnull
+	Map<String, WiredModemPeripheral> getMembers() {
+		return byName;
+	}
+}
@@ -19,7 +19,15 @@ import net.clgd.ccemux.api.peripheral.Peripheral;
  * @see dan200.computercraft.shared.peripheral.modem.WirelessModemPeripheral
  */
 public class WirelessModemPeripheral implements Peripheral {
-	private static final Set<WirelessModemPeripheral> modems = new HashSet<>();
+	private static final WirelessNetwork network = new WirelessNetwork();
+
+	/**
+	 * Gets the network which all wireless modems transmit on
+	 */
+	@Nonnull
+	public static WirelessNetwork getNetwork() {
+		return network;
+	}
 
 	private IComputerAccess computer = null;
 	private final Set<Integer> channels = new HashSet<>();
@@ -41,24 +49,34 @@ public class WirelessModemPeripheral implements Peripheral {
 		posX = group.property("posX", Integer.class, 0);
 		posY = group.property("posY", Integer.class, 0);
 		posZ = group.property("posZ", Integer.class, 0);
+
+		range.addListener((o, n) -> moved());
+		interdimensional.addListener((o, n) -> moved());
+		world.addListener((o, n) -> moved());
+		posX.addListener((o, n) -> moved());
+		posY.addListener((o, n) -> moved());
+		posZ.addListener((o, n) -> moved());
 	}
 
-	private void receiveSameDimension(@Nonnull Packet packet, double distance) {
-		if (packet.getSender() != this) {
-			synchronized (this) {
-				if (computer != null && channels.contains(packet.getChannel())) {
-					computer.queueEvent("modem_message", new Object[] { computer.getAttachmentName(), packet.getChannel(), packet.getReplyChannel(), packet.getPayload(), distance });
-				}
-			}
-		}
+	@Nonnull
+	private WirelessNetwork.Position getPosition() {
+		return new WirelessNetwork.Position(world.get(), posX.get(), posY.get(), posZ.get(), range.get(), interdimensional.get());
 	}
 
-	private void receiveDifferentDimension(@Nonnull Packet packet) {
-		if (packet.getSender() != this) {
-			synchronized (this) {
-				if (computer != null && channels.contains(packet.getChannel())) {
-					computer.queueEvent("modem_message", new Object[] { computer.getAttachmentName(), packet.getChannel(), packet.getReplyChannel(), packet.getPayload() });
-				}
+	private synchronized void moved() {
+		if (computer != null && !channels.isEmpty()) network.move(this, getPosition());
+	}
+
+	void receive(@Nonnull Packet packet, @Nonnull WirelessNetwork.Position sender) {
+		synchronized (this) {
+			if (computer == null || !channels.contains(packet.getChannel())) return;
+
+			WirelessNetwork.Position position = getPosition();
+			if (position.world.equals(sender.world)) {
+				double distance = Math.sqrt(position.distanceSq(sender));
+				computer.queueEvent("modem_message", new Object[] { computer.getAttachmentName(), packet.getChannel(), packet.getReplyChannel(), packet.getPayload(), distance });
+			} else {
+				computer.queueEvent("modem_message", new Object[] { computer.getAttachmentName(), packet.getChannel(), packet.getReplyChannel(), packet.getPayload() });
 			}
 		}
 	}
@@ -100,6 +118,7 @@ public class WirelessModemPeripheral implements Peripheral {
 						}
 
 						channels.add(channel);
+						network.open(this, getPosition(), channel);
 						open = true;
 					}
 				}
@@ -116,7 +135,10 @@ public class WirelessModemPeripheral implements Peripheral {
 			case 2: { // close
 				int channel = parseChannel(arguments, 0);
 				synchronized (this) {
-					if (channels.remove(channel) && channels.size() == 0) open = false;
+					if (channels.remove(channel)) {
+						network.close(this, channel);
+						if (channels.size() == 0) open = false;
+					}
 
 					return null;
 				}
@@ -125,6 +147,7 @@ public class WirelessModemPeripheral implements Peripheral {
 				synchronized (this) {
 					if (channels.size() > 0) {
 						channels.clear();
+						network.remove(this);
 						open = false;
 					}
 
@@ -134,13 +157,8 @@ public class WirelessModemPeripheral implements Peripheral {
 				int channel = parseChannel(arguments, 0);
 				int replyChannel = parseChannel(arguments, 1);
 				Object payload = arguments.length >= 3 ? arguments[2] : null;
-				synchronized (this) {
-					Packet packet = new Packet(channel, replyChannel, payload, this);
-					synchronized (modems) {
-						for (WirelessModemPeripheral receiver : modems) receiver.tryTransmit(packet);
-					}
-					return null;
-				}
+				network.send(new Packet(channel, replyChannel, payload, this), getPosition());
+				return null;
 			}
 			case 5: // isWireless
 				return new Object[] { true };
@@ -149,35 +167,17 @@ public class WirelessModemPeripheral implements Peripheral {
 		}
 	}
 
-	private void tryTransmit(Packet packet) {
-		WirelessModemPeripheral sender = packet.getSender();
-		if (world.get().equals(sender.world.get())) {
-			double receiveRange = Math.max(sender.range.get(), range.get());
-			double distanceSq
-				= Math.pow(posX.get() - sender.posX.get(), 2)
-				+ Math.pow(posY.get() - sender.posY.get(), 2)
-				+ Math.pow(posZ.get() - sender.posZ.get(), 2);
-
-			if (interdimensional.get() || sender.interdimensional.get() || distanceSq <= receiveRange * receiveRange) {
-				receiveSameDimension(packet, Math.sqrt(distanceSq));
-			}
-		} else if (interdimensional.get() || sender.interdimensional.get()) {
-			receiveDifferentDimension(packet);
-		}
-	}
-
 	public synchronized void attach(@Nonnull IComputerAccess computer) {
 		this.computer = computer;
 		open = !channels.isEmpty();
-		synchronized (modems) {
-			modems.add(this);
+		if (open) {
+			WirelessNetwork.Position position = getPosition();
+			for (int channel : channels) network.open(this, position, channel);
 		}
 	}
 
 	public synchronized void detach(@Nonnull IComputerAccess computer) {
-		synchronized (modems) {
-			modems.remove(this);
-		}
+		network.remove(this);
 		channels.clear();
 		this.computer = null;
 		if (open) open = false;
@@ -0,0 +1,383 @@
+package net.clgd.ccemux.plugins.builtin.peripherals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivers packets between wireless modems.
+ *
+ * Transmitting a packet only adds it to a queue, which is drained once per
+ * tick by {@link #deliver()}. The receivers of each packet are found using an
+ * index of the modems listening on each channel. Modems with a range of at
+ * most {@link #CELL_SIZE} are stored in a grid of cells for each world, so a
+ * search only visits the cells within range of the sender. Modems with a
+ * larger range and interdimensional modems are few, and are kept separately
+ * and always checked.
+ *
+ * The index is built from concurrent collections, so modems opening and
+ * closing channels never block delivery.
+ */
+@Slf4j
+public final class WirelessNetwork {
+	/**
+	 * The size of a grid cell, in blocks
+	 */
+	static final int CELL_SIZE = 64;
+
+	/**
+	 * How often the packet rate is recalculated
+	 */
+	private static final long RATE_WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * The location and range of a modem
+	 */
+	static final class Position {
+		final String world;
+		final int x, y, z;
+		final int range;
+		final boolean interdimensional;
+
+		Position(@Nonnull String world, int x, int y, int z, int range, boolean interdimensional) {
+			this.world = world;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.range = range;
+			this.interdimensional = interdimensional;
+		}
+
+		double distanceSq(@Nonnull Position other) {
+			double dx = x - other.x, dy = y - other.y, dz = z - other.z;
+			return dx * dx + dy * dy + dz * dz;
+		}
+
+		/**
+		 * Whether a packet sent from the given position can reach this one
+		 */
+		boolean inRange(@Nonnull Position sender) {
+			double range = Math.max(this.range, sender.range);
+			return distanceSq(sender) <= range * range;
+		}
+	}
+
+	private static final class Member {
+		final WirelessModemPeripheral modem;
+		final Set<Integer> channels = new HashSet<>();
+		volatile Position position;
+
+		Member(WirelessModemPeripheral modem, Position position) {
+			this.modem = modem;
+			this.position = position;
+		}
+	}
+
+	/**
+	 * The modems listening on a single channel
+	 */
+	private static final class Channel {
+		final Map<String, Map<Long, Set<Member>>> grids = new ConcurrentHashMap<>();
+		final Set<Member> wide = ConcurrentHashMap.newKeySet();
+		final Set<Member> interdimensional = ConcurrentHashMap.newKeySet();
+
+		void add(Member member, Position position) {
+			if (position.interdimensional) {
+				interdimensional.add(member);
+			} else if (position.range > CELL_SIZE) {
+				wide.add(member);
+			} else {
+				grids.computeIfAbsent(position.world, w -> new ConcurrentHashMap<>())
+					.compute(cell(position), (k, cell) -> {
+						if (cell == null) cell = ConcurrentHashMap.newKeySet();
+						cell.add(member);
+						return cell;
+					});
+			}
+		}
+
+		void remove(Member member, Position position) {
+			if (position.interdimensional) {
+				interdimensional.remove(member);
+			} else if (position.range > CELL_SIZE) {
+				wide.remove(member);
+			} else {
+				Map<Long, Set<Member>> grid = grids.get(position.world);
+				if (grid != null) {
+					grid.computeIfPresent(cell(position), (k, cell) -> {
+						cell.remove(member);
+						return cell.isEmpty() ? null : cell;
+					});
+				}
+			}
+		}
+	}
+
+	/**
+	 * A packet waiting to be delivered
+	 */
+	private static final class Transmission {
+		final Packet packet;
+		final Position sender;
+
+		Transmission(Packet packet, Position sender) {
+			this.packet = packet;
+			this.sender = sender;
+		}
+	}
+
+	private final Map<WirelessModemPeripheral, Member> members = new ConcurrentHashMap<>();
+	private final Map<Integer, Channel> channels = new ConcurrentHashMap<>();
+
+	private final Queue<Transmission> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queueDepth = new AtomicInteger();
+
+	/**
+	 * Set while delivering, so only one thread drains the queue at a time
+	 */
+	private final AtomicBoolean delivering = new AtomicBoolean();
+	private final List<WirelessModemPeripheral> receivers = new ArrayList<>();
+
+	private final AtomicLong packets = new AtomicLong();
+	private final AtomicLong deliveries = new AtomicLong();
+	private volatile int maxFanOut = 0;
+	private volatile double packetsPerSecond = 0;
+
+	private long windowStart = System.nanoTime();
+	private long windowPackets = 0;
+
+	private static long cell(int cx, int cy, int cz) {
+		return ((long) (cx & 0x1FFFFF) << 42) | ((long) (cy & 0x1FFFFF) << 21) | (cz & 0x1FFFFF);
+	}
+
+	private static long cell(Position position) {
+		return cell(Math.floorDiv(position.x, CELL_SIZE), Math.floorDiv(position.y, CELL_SIZE),
+			Math.floorDiv(position.z, CELL_SIZE));
+	}
+
+	/**
+	 * Starts listening on a channel. If the modem is already listening on other
+	 * channels, the given position is ignored in favour of the indexed one.
+	 *
+	 * Changes to a single modem's channels or position must not be made
+	 * concurrently.
+	 */
+	void open(@Nonnull WirelessModemPeripheral modem, @Nonnull Position position, int channel) {
+		Member member = members.computeIfAbsent(modem, m -> new Member(m, position));
+		if (member.channels.add(channel)) {
+			channels.computeIfAbsent(channel, c -> new Channel()).add(member, member.position);
+		}
+	}
+
+	void close(@Nonnull WirelessModemPeripheral modem, int channel) {
+		Member member = members.get(modem);
+		if (member != null && member.channels.remove(channel)) {
+			channels.get(channel).remove(member, member.position);
+			if (member.channels.isEmpty()) members.remove(modem);
+		}
+	}
+
+	/**
+	 * Stops listening on all channels
+	 */
+	void remove(@Nonnull WirelessModemPeripheral modem) {
+		Member member = members.remove(modem);
+		if (member != null) {
+			for (int channel : member.channels) channels.get(channel).remove(member, member.position);
+		}
+	}
+
+	/**
+	 * Updates the indexed position of a modem
+	 */
+	void move(@Nonnull WirelessModemPeripheral modem, @Nonnull Position position) {
+		Member member = members.get(modem);
+		if (member != null) {
+			Position old = member.position;
+			member.position = position;
+			for (int channel : member.channels) {
+				Channel entry = channels.get(channel);
+				entry.remove(member, old);
+				entry.add(member, position);
+			}
+		}
+	}
+
+	/**
+	 * Queues a packet to be delivered on the next tick
+	 *
+	 * @param packet The packet to send
+	 * @param sender The position of the sending modem
+	 */
+	void send(@Nonnull Packet packet, @Nonnull Position sender) {
+		queue.offer(new Transmission(packet, sender));
+		queueDepth.incrementAndGet();
+	}
+
+	/**
+	 * Delivers all queued packets to the modems which can receive them. This is
+	 * called once per tick by {@link DefaultPeripheralsPlugin}. If another thread
+	 * is already delivering, this returns immediately.
+	 */
+	public void deliver() {
+		if (!delivering.compareAndSet(false, true)) return;
+
+		try {
+			// Packets sent while delivering wait for the next tick
+			for (int remaining = queueDepth.get(); remaining > 0; remaining--) {
+				Transmission transmission = queue.poll();
+				if (transmission == null) break;
+				queueDepth.decrementAndGet();
+
+				Packet packet = transmission.packet;
+				receivers.clear();
+				findReceivers(transmission.sender, packet.getChannel(), packet.getSender(), receivers);
+				for (WirelessModemPeripheral receiver : receivers) receiver.receive(packet, transmission.sender);
+
+				packets.incrementAndGet();
+				deliveries.addAndGet(receivers.size());
+				if (receivers.size() > maxFanOut) maxFanOut = receivers.size();
+				windowPackets++;
+			}
+
+			long now = System.nanoTime();
+			if (now - windowStart >= RATE_WINDOW) {
+				packetsPerSecond = windowPackets * (double) TimeUnit.SECONDS.toNanos(1) / (now - windowStart);
+				if (windowPackets > 0) {
+					log.debug("Wireless network: {} packets/s, average fan-out {}, queue depth {}",
+						String.format("%.1f", packetsPerSecond), String.format("%.1f", getAverageFanOut()),
+						queueDepth.get());
+				}
+
+				windowStart = now;
+				windowPackets = 0;
+			}
+		} finally {
+			delivering.set(false);
+		}
+	}
+
+	/**
+	 * Finds the modems which should receive a packet
+	 *
+	 * @param sender    The position of the sending modem
+	 * @param channel   The channel the packet is sent on
+	 * @param exclude   The sending modem, which will not receive its own packet
+	 * @param receivers The collection to add receivers to
+	 */
+	private void findReceivers(@Nonnull Position sender, int channel, @Nonnull WirelessModemPeripheral exclude,
+		@Nonnull Collection<WirelessModemPeripheral> receivers) {
+		Channel entry = channels.get(channel);
+		if (entry == null) return;
+
+		for (Member member : entry.interdimensional) {
+			if (member.modem != exclude) receivers.add(member.modem);
+		}
+
+		if (sender.interdimensional) {
+			// Every listener can hear this, so skip the distance checks
+			for (Member member : entry.wide) {
+				if (member.modem != exclude) receivers.add(member.modem);
+			}
+
+			for (Map<Long, Set<Member>> grid : entry.grids.values()) {
+				for (Set<Member> cell : grid.values()) {
+					for (Member member : cell) {
+						if (member.modem != exclude) receivers.add(member.modem);
+					}
+				}
+			}
+
+			return;
+		}
+
+		for (Member member : entry.wide) {
+			Position position = member.position;
+			if (member.modem != exclude && position.world.equals(sender.world) && position.inRange(sender)) {
+				receivers.add(member.modem);
+			}
+		}
+
+		Map<Long, Set<Member>> grid = entry.grids.get(sender.world);
+		if (grid == null) return;
+
+		// Grid members have a range of at most CELL_SIZE, so this covers everyone who can hear us
+		long radius = Math.max(sender.range, CELL_SIZE);
+		long minX = Math.floorDiv(sender.x - radius, CELL_SIZE), maxX = Math.floorDiv(sender.x + radius, CELL_SIZE);
+		long minY = Math.floorDiv(sender.y - radius, CELL_SIZE), maxY = Math.floorDiv(sender.y + radius, CELL_SIZE);
+		long minZ = Math.floorDiv(sender.z - radius, CELL_SIZE), maxZ = Math.floorDiv(sender.z + radius, CELL_SIZE);
+
+		double searched = (double) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+		if (searched > grid.size()) {
+			// Fewer occupied cells than cells in range, so just check them all
+			for (Set<Member> cell : grid.values()) addInRange(cell, sender, exclude, receivers);
+		} else {
+			for (int cx = (int) minX; cx <= maxX; cx++) {
+				for (int cy = (int) minY; cy <= maxY; cy++) {
+					for (int cz = (int) minZ; cz <= maxZ; cz++) {
+						Set<Member> cell = grid.get(cell(cx, cy, cz));
+						if (cell != null) addInRange(cell, sender, exclude, receivers);
+					}
+				}
+			}
+		}
+	}
+
+	private static void addInRange(Set<Member> cell, Position sender, WirelessModemPeripheral exclude,
+		Collection<WirelessModemPeripheral> receivers) {
+		for (Member member : cell) {
+			if (member.modem != exclude && member.position.inRange(sender)) receivers.add(member.modem);
+		}
+	}
+
+	/**
+	 * Gets the number of packets delivered per second, measured over the last
+	 * second
+	 */
+	public double getPacketsPerSecond() {
+		return packetsPerSecond;
+	}
+
+	/**
+	 * Gets the total number of packets delivered
+	 */
+	public long getPacketCount() {
+		return packets.get();
+	}
+
+	/**
+	 * Gets the average number of modems each packet was delivered to
+	 */
+	public double getAverageFanOut() {
+		long count = packets.get();
+		return count == 0 ? 0 : (double) deliveries.get() / count;
+	}
+
+	/**
+	 * Gets the largest number of modems a single packet was delivered to
+	 */
+	public int getMaxFanOut() {
+		return maxFanOut;
+	}
+
+	/**
+	 * Gets the number of packets waiting to be delivered
+	 */
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+}
@@ -20,6 +20,8 @@ import javax.imageio.ImageIO;
 import javax.swing.InputMap;
 import javax.swing.JOptionPane;
 import javax.swing.KeyStroke;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.text.DefaultEditorKit;
 
@@ -72,6 +74,7 @@ public class AWTRenderer implements Renderer, KeyListener, MouseListener, MouseM
 
 	private boolean lastBlink = false;
 	private boolean lastShutdown = false;
+	private boolean shutdownChanged = false;
 	private int dragButton = 4;
 	private Point lastDragSpot = null;
 
@@ -135,9 +138,25 @@ public class AWTRenderer implements Renderer, KeyListener, MouseListener, MouseM
 
 						@SuppressWarnings("unchecked")
 						val data = (List<File>) dtde.getTransferable().getTransferData(DataFlavor.javaFileListFlavor);
-						computer.copyFiles(data, "/");
-						JOptionPane.showMessageDialog(null, "Files have been copied to the computer root.",
-							"Files copied", JOptionPane.INFORMATION_MESSAGE);
+						dtde.dropComplete(true);
+
+						// Copy in the background, so large trees don't freeze the window. The monitor
+						// only pops up if the copy looks like it will take a while.
+						val monitor = new ProgressMonitor(frame, "Copying files to computer #" + computer.getID(), null, 0, 1000);
+						computer.copyFilesAsync(new ArrayList<>(data), "/", (copied, total) -> {
+							int progress = total == 0 ? 1000 : (int) (copied * 1000 / total);
+							SwingUtilities.invokeLater(() -> monitor.setProgress(progress));
+						})
+							.whenComplete((result, e) -> SwingUtilities.invokeLater(() -> {
+								monitor.close();
+								if (e == null) {
+									JOptionPane.showMessageDialog(null, "Files have been copied to the computer root.",
+										"Files copied", JOptionPane.INFORMATION_MESSAGE);
+								} else {
+									log.error("Error copying files", e);
+									JOptionPane.showMessageDialog(null, e, "Error copying files", JOptionPane.ERROR_MESSAGE);
+								}
+							}));
 					} else if (DataFlavor.selectBestTextFlavor(flavors) != null) {
 						val f = DataFlavor.selectBestTextFlavor(flavors);
 
@@ -207,6 +226,12 @@ public class AWTRenderer implements Renderer, KeyListener, MouseListener, MouseM
 		return title;
 	}
 
+	@Override
+	public void onShutdownChanged(boolean shutdown) {
+		lastShutdown = shutdown;
+		shutdownChanged = true;
+	}
+
 	@Override
 	public void onAdvance(double dt) {
 		frame.setTitle(getWindowTitle());
@@ -245,6 +270,7 @@ public class AWTRenderer implements Renderer, KeyListener, MouseListener, MouseM
 
 			if (computer.terminal.getPalette().isChanged()) {
 				doRepaint = true;
+				termComponent.redrawAll();
 				computer.terminal.getPalette().setChanged(false);
 			}
 
@@ -253,9 +279,9 @@ public class AWTRenderer implements Renderer, KeyListener, MouseListener, MouseM
 				lastBlink = Utils.getGlobalCursorBlink();
 			}
 
-			if (computer.isShutdown() != lastShutdown) {
+			if (shutdownChanged) {
 				doRepaint = true;
-				lastShutdown = computer.isShutdown();
+				shutdownChanged = false;
 			}
 
 			if (doRepaint) {
@@ -403,6 +429,7 @@ public class AWTRenderer implements Renderer, KeyListener, MouseListener, MouseM
 	@Override
 	public void dispose() {
 		frame.dispose();
+		termComponent.dispose();
 	}
 
 	@Override
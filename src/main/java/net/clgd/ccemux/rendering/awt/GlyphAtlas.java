@@ -0,0 +1,114 @@
+package net.clgd.ccemux.rendering.awt;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.RescaleOp;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.clgd.ccemux.api.emulation.EmulatedPalette;
+import net.clgd.ccemux.api.rendering.PaletteAdapter;
+import net.clgd.ccemux.api.rendering.TerminalFont;
+
+/**
+ * A set of pre-tinted glyph sheets, one for each terminal colour. Each sheet
+ * contains every glyph of the font scaled to the terminal's cell size, laid out
+ * in the same 16x16 grid as the font.
+ *
+ * Sheets are only rebuilt when the corresponding palette colour changes, so
+ * drawing a character is a single {@link Graphics#drawImage} with no
+ * allocation.
+ */
+class GlyphAtlas implements EmulatedPalette.ColorChangeListener {
+	private static final int COLOURS = 16;
+	private static final int GLYPHS = TerminalFont.COLUMNS * TerminalFont.ROWS;
+
+	private final AWTTerminalFont font;
+	private final PaletteAdapter<Color> palette;
+	private final int glyphWidth;
+	private final int glyphHeight;
+
+	private final BufferedImage[] sheets = new BufferedImage[COLOURS];
+
+	/**
+	 * A bitmask of the terminal colours whose sheets need rebuilding. This is
+	 * set from the computer thread and consumed on the render thread.
+	 */
+	private final AtomicInteger stale = new AtomicInteger((1 << COLOURS) - 1);
+
+	GlyphAtlas(AWTTerminalFont font, PaletteAdapter<Color> palette, int glyphWidth, int glyphHeight) {
+		this.font = font;
+		this.palette = palette;
+		this.glyphWidth = glyphWidth;
+		this.glyphHeight = glyphHeight;
+	}
+
+	AWTTerminalFont getFont() {
+		return font;
+	}
+
+	@Override
+	public void setColour(int index, double r, double g, double b) {
+		// Palette indexes are the reverse of terminal colours
+		int colour = 15 - index;
+		if (colour >= 0 && colour < COLOURS) stale.getAndUpdate(x -> x | (1 << colour));
+	}
+
+	/**
+	 * Rebuilds any sheets whose colour has changed since the last call. This
+	 * should be called once per frame before drawing.
+	 */
+	void validate() {
+		int mask = stale.getAndSet(0);
+		for (int colour = 0; mask != 0; colour++, mask >>>= 1) {
+			if ((mask & 1) != 0) sheets[colour] = buildSheet(colour);
+		}
+	}
+
+	/**
+	 * Draws a glyph in the given terminal colour at the given position
+	 *
+	 * @param index The glyph and colour, packed as {@code colour << 8 | character}
+	 */
+	void draw(Graphics g, int index, int x, int y) {
+		int glyph = index & 0xFF;
+		int sx = glyph % TerminalFont.COLUMNS * glyphWidth;
+		int sy = glyph / TerminalFont.COLUMNS * glyphHeight;
+
+		g.drawImage(sheets[index >>> 8], x, y, x + glyphWidth, y + glyphHeight,
+			sx, sy, sx + glyphWidth, sy + glyphHeight, null);
+	}
+
+	/**
+	 * Packs a character and terminal colour into an index for {@link #draw}.
+	 * Invalid colours fall back to black, as {@link PaletteAdapter} does.
+	 */
+	static int index(char c, int colour) {
+		if (colour < 0 || colour >= COLOURS) colour = 15;
+		return colour << 8 | (c & 0xFF);
+	}
+
+	private BufferedImage buildSheet(int colour) {
+		GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+			.getDefaultConfiguration();
+
+		BufferedImage sheet = gc.createCompatibleImage(glyphWidth * TerminalFont.COLUMNS,
+			glyphHeight * TerminalFont.ROWS, Transparency.TRANSLUCENT);
+
+		Graphics2D g = sheet.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		for (int c = 0; c < GLYPHS; c++) {
+			Rectangle r = font.getCharCoords((char) c);
+			int dx = c % TerminalFont.COLUMNS * glyphWidth;
+			int dy = c / TerminalFont.COLUMNS * glyphHeight;
+
+			g.drawImage(font.getBitmap(), dx, dy, dx + glyphWidth, dy + glyphHeight,
+				r.x, r.y, r.x + r.width, r.y + r.height, null);
+		}
+		g.dispose();
+
+		float[] rgb = palette.getColor(colour).getRGBComponents(null);
+		new RescaleOp(rgb, new float[4], null).filter(sheet, sheet);
+
+		return sheet;
+	}
+}
@@ -2,21 +2,16 @@ package net.clgd.ccemux.rendering.awt;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.RescaleOp;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.awt.image.DataBufferInt;
+import java.util.BitSet;
 
-import org.apache.commons.lang3.tuple.Pair;
-
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import dan200.computercraft.core.terminal.Terminal;
-import dan200.computercraft.core.terminal.TextBuffer;
 import dan200.computercraft.shared.util.Colour;
 import lombok.extern.slf4j.Slf4j;
 import net.clgd.ccemux.api.Utils;
+import net.clgd.ccemux.api.emulation.EmulatedTerminal;
 import net.clgd.ccemux.api.rendering.PaletteAdapter;
 import net.clgd.ccemux.api.rendering.PaletteAdapter.ColorAdapter;
+import net.clgd.ccemux.api.rendering.TerminalRasterizer;
 
 @Slf4j
 class TerminalComponent extends Canvas {
@@ -27,7 +22,7 @@ class TerminalComponent extends Canvas {
 
 	private final PaletteAdapter<Color> paletteCacher;
 
-	public final Terminal terminal;
+	public final EmulatedTerminal terminal;
 	public final int pixelWidth;
 	public final int pixelHeight;
 	public final int margin;
@@ -36,10 +31,30 @@ class TerminalComponent extends Canvas {
 
 	public boolean blinkLocked = false;
 
-	private final Cache<Pair<Character, Color>, BufferedImage> charImgCache = CacheBuilder.newBuilder()
-		.expireAfterAccess(10, TimeUnit.SECONDS).build();
-
-	public TerminalComponent(Terminal terminal, double termScale) {
+	/**
+	 * The lines which need redrawing this frame
+	 */
+	private final BitSet damage = new BitSet();
+
+	private volatile boolean redrawAll = true;
+
+	/**
+	 * An image holding the terminal contents (without the cursor or any
+	 * overlays), which is updated incrementally as lines are damaged.
+	 */
+	private BufferedImage backBuffer;
+	private TerminalRasterizer rasterizer;
+	private AWTTerminalFont rasterizerFont;
+
+	/**
+	 * The glyph atlas, which listens to the palette until this component is
+	 * disposed. Replacing it is guarded by glyphLock.
+	 */
+	private GlyphAtlas glyphs;
+	private boolean disposed = false;
+	private final Object glyphLock = new Object();
+
+	public TerminalComponent(EmulatedTerminal terminal, double termScale) {
 		this.pixelWidth = (int) (6 * termScale);
 		this.pixelHeight = (int) (9 * termScale);
 		this.margin = (int) (2 * termScale);
@@ -56,82 +71,100 @@ class TerminalComponent extends Canvas {
 		setPreferredSize(termDimensions);
 	}
 
-	private void drawChar(AWTTerminalFont font, Graphics g, char c, int x, int y, int color) {
+	private void drawChar(Graphics g, char c, int x, int y, int color) {
 		if (c == '\0' || Character.isSpaceChar(c)) {
 			return; // nothing to do here
 		}
 
-		Rectangle r = font.getCharCoords(c);
-		Color colour = paletteCacher.getColor(color);
+		glyphs.draw(g, GlyphAtlas.index(c, color), x, y);
+	}
 
-		BufferedImage charImg = null;
+	/**
+	 * Ensures the glyph atlas is built for the given font and is up to date with
+	 * the palette.
+	 */
+	private void validateGlyphs(AWTTerminalFont font) {
+		synchronized (glyphLock) {
+			if (glyphs == null || glyphs.getFont() != font) {
+				if (glyphs != null) terminal.getPalette().removeListener(glyphs);
+
+				glyphs = new GlyphAtlas(font, paletteCacher, pixelWidth, pixelHeight);
+				if (!disposed) terminal.getPalette().addListener(glyphs);
+				redrawAll = true;
+			}
+		}
 
-		float[] zero = new float[4];
+		glyphs.validate();
+	}
 
-		try {
-			charImg = charImgCache.get(Pair.of(c, colour), () -> {
-				float[] rgb = new float[4];
-				colour.getRGBComponents(rgb);
+	/**
+	 * Stops listening to the terminal's palette, once this component is no
+	 * longer used
+	 */
+	public void dispose() {
+		synchronized (glyphLock) {
+			disposed = true;
+			if (glyphs != null) terminal.getPalette().removeListener(glyphs);
+		}
+	}
 
-				RescaleOp rop = new RescaleOp(rgb, zero, null);
+	/**
+	 * Marks the whole terminal as needing to be redrawn, for instance when the
+	 * palette changes.
+	 */
+	public void redrawAll() {
+		redrawAll = true;
+	}
 
-				GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
-					.getDefaultConfiguration();
+	/**
+	 * Ensures the back buffer and rasterizer exist and match the terminal's size,
+	 * returning whether they were (re)created.
+	 */
+	private boolean validateBackBuffer(AWTTerminalFont font) {
+		if (rasterizer != null && rasterizerFont == font && rasterizer.getColumns() == terminal.getWidth()
+			&& rasterizer.getRows() == terminal.getHeight()) {
+			return false;
+		}
 
-				BufferedImage img = font.getBitmap().getSubimage(r.x, r.y, r.width, r.height);
-				BufferedImage pixel = gc.createCompatibleImage(r.width, r.height, Transparency.TRANSLUCENT);
+		int width = terminal.getWidth() * pixelWidth + margin * 2;
+		int height = terminal.getHeight() * pixelHeight + margin * 2;
 
-				Graphics ig = pixel.getGraphics();
-				ig.drawImage(img, 0, 0, null);
-				ig.dispose();
+		// The rasterizer draws straight into the image's backing array
+		backBuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		int[] framebuffer = ((DataBufferInt) backBuffer.getRaster().getDataBuffer()).getData();
 
-				rop.filter(pixel, pixel);
-				return pixel;
-			});
-		} catch (ExecutionException e) {
-			log.error("Could not retrieve char image from cache!", e);
-		}
+		BufferedImage bitmap = font.getBitmap();
+		int[] fontPixels = bitmap.getRGB(0, 0, bitmap.getWidth(), bitmap.getHeight(), null, 0, bitmap.getWidth());
 
-		g.drawImage(charImg, x, y, pixelWidth, pixelHeight, null);
+		rasterizer = new TerminalRasterizer(font, fontPixels, bitmap.getWidth(), terminal.getWidth(),
+			terminal.getHeight(), pixelWidth, pixelHeight, margin, framebuffer);
+		rasterizerFont = font;
+		return true;
 	}
 
+	/**
+	 * Rasterizes the damaged lines of the terminal into the back buffer, then
+	 * copies it to the screen and draws the cursor and shutdown overlay on top.
+	 */
 	private void renderTerminal(AWTTerminalFont font, double dt, boolean shutdownOverlay) {
 		synchronized (terminal) {
-			Graphics g = getBufferStrategy().getDrawGraphics();
-
-			int dx = 0;
-			int dy = 0;
-
-			for (int y = 0; y < terminal.getHeight(); y++) {
-				TextBuffer textLine = terminal.getLine(y);
-				TextBuffer bgLine = terminal.getBackgroundColourLine(y);
-				TextBuffer fgLine = terminal.getTextColourLine(y);
-
-				int height = (y == 0 || y == terminal.getHeight() - 1) ? pixelHeight + margin : pixelHeight;
-
-				for (int x = 0; x < terminal.getWidth(); x++) {
-					int width = (x == 0 || x == terminal.getWidth() - 1) ? pixelWidth + margin : pixelWidth;
-
-					g.setColor(paletteCacher.getColor((bgLine == null) ? 'f' : bgLine.charAt(x)));
-					g.fillRect(dx, dy, width, height);
+			validateGlyphs(font);
 
-					char character = (textLine == null) ? ' ' : textLine.charAt(x);
-					char fgChar = (fgLine == null) ? ' ' : fgLine.charAt(x);
-
-					drawChar(font, g, character, x * pixelWidth + margin, y * pixelHeight + margin,
-						Utils.base16ToInt(fgChar));
+			terminal.drainDamage(damage);
+			if (validateBackBuffer(font) || redrawAll) {
+				damage.set(0, terminal.getHeight());
+				redrawAll = false;
+			}
 
-					dx += width;
-				}
+			if (!damage.isEmpty()) rasterizer.render(terminal, paletteCacher, damage);
 
-				dx = 0;
-				dy += height;
-			}
+			Graphics g = getBufferStrategy().getDrawGraphics();
+			g.drawImage(backBuffer, 0, 0, null);
 
 			boolean blink = terminal.getCursorBlink() && (blinkLocked || Utils.getGlobalCursorBlink());
 
 			if (blink) {
-				drawChar(font, g, cursorChar, terminal.getCursorX() * pixelWidth + margin,
+				drawChar(g, cursorChar, terminal.getCursorX() * pixelWidth + margin,
 					terminal.getCursorY() * pixelHeight + margin, terminal.getTextColour());
 			}
 
@@ -148,7 +181,7 @@ class TerminalComponent extends Canvas {
 					g.fillRect(startX - margin, startY - margin, SHUTDOWN_MESSAGE.length * pixelWidth + margin * 2, pixelHeight + margin * 2);
 
 					for (int i = 0; i < SHUTDOWN_MESSAGE.length; i++) {
-						drawChar(font, g, SHUTDOWN_MESSAGE[i], i * pixelWidth + startX, startY, 15 - Colour.White.ordinal());
+						drawChar(g, SHUTDOWN_MESSAGE[i], i * pixelWidth + startX, startY, 15 - Colour.White.ordinal());
 					}
 				} else {
 					// TODO: Word wrap or something
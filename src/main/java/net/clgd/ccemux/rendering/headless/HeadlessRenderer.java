@@ -0,0 +1,65 @@
+package net.clgd.ccemux.rendering.headless;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.annotation.Nonnull;
+
+import net.clgd.ccemux.api.emulation.EmulatedComputer;
+import net.clgd.ccemux.api.rendering.Renderer;
+
+/**
+ * A renderer which does not display anything or accept any input. It does not
+ * listen to the terminal at all, so computers using it carry no rendering cost.
+ *
+ * As there is no window to close, the renderer is closed once its computer
+ * shuts down (for instance through {@code os.shutdown()}). A headless run
+ * therefore ends when every computer has shut down.
+ */
+public class HeadlessRenderer implements Renderer {
+	private final EmulatedComputer computer;
+
+	private final List<Renderer.Listener> listeners = new CopyOnWriteArrayList<>();
+
+	private boolean visible = false;
+
+	public HeadlessRenderer(EmulatedComputer computer) {
+		this.computer = computer;
+	}
+
+	@Override
+	public boolean isVisible() {
+		return visible;
+	}
+
+	@Override
+	public void setVisible(boolean visible) {
+		this.visible = visible;
+	}
+
+	@Override
+	public void dispose() {
+		visible = false;
+	}
+
+	@Override
+	public void onShutdownChanged(boolean shutdown) {
+		// Rebooting does not count, as a start is already requested by then
+		if (shutdown) listeners.forEach(Renderer.Listener::onClosed);
+	}
+
+	@Override
+	public void addListener(@Nonnull Renderer.Listener l) {
+		listeners.add(l);
+	}
+
+	@Override
+	public void removeListener(@Nonnull Renderer.Listener l) {
+		listeners.remove(l);
+	}
+
+	@Override
+	public String toString() {
+		return "HeadlessRenderer(computer=" + computer.getID() + ")";
+	}
+}
@@ -5,11 +5,12 @@ import static net.clgd.ccemux.api.rendering.TerminalFont.BASE_CHAR_HEIGHT;
 import static net.clgd.ccemux.api.rendering.TerminalFont.BASE_CHAR_WIDTH;
 import static net.clgd.ccemux.api.rendering.TerminalFont.BASE_MARGIN;
 
-import java.io.IOException;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 
-import dan200.computercraft.core.terminal.TextBuffer;
 import javafx.application.Platform;
 import javafx.beans.Observable;
 import javafx.beans.binding.DoubleExpression;
@@ -17,7 +18,10 @@ import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.DragEvent;
 import javafx.scene.input.KeyCode;
@@ -34,6 +38,7 @@ import net.clgd.ccemux.api.OperatingSystem;
 import net.clgd.ccemux.api.Utils;
 import net.clgd.ccemux.api.emulation.EmulatedComputer;
 import net.clgd.ccemux.api.rendering.PaletteAdapter;
+import net.clgd.ccemux.api.rendering.TerminalRasterizer;
 import net.clgd.ccemux.plugins.builtin.JFXPlugin;
 
 @Slf4j
@@ -60,6 +65,25 @@ public class ComputerPane extends Pane implements EmulatedComputer.Listener {
 	private boolean lastBlink = false;
 	private double blinkLockedTime = 0;
 
+	/**
+	 * The lines which need redrawing this frame, and whether every line should
+	 * be redrawn regardless of damage
+	 */
+	private final BitSet damage = new BitSet();
+	private volatile boolean redrawAll = true;
+
+	/**
+	 * The line the cursor was last drawn on, or -1 if it has not been drawn
+	 */
+	private int lastCursorY = -1;
+
+	/**
+	 * Draws the terminal into a framebuffer, which is copied into {@link #frame}
+	 * and then onto the canvas. These are only accessed on the JavaFX thread.
+	 */
+	private TerminalRasterizer rasterizer;
+	private WritableImage frame;
+
 	/**
 	 * Map of currently-pressed key codes to the time (in millis) that they were
 	 * first pressed
@@ -98,8 +122,8 @@ public class ComputerPane extends Pane implements EmulatedComputer.Listener {
 		canvas.widthProperty().bind(this.widthProperty());
 		canvas.heightProperty().bind(this.heightProperty());
 
-		canvas.widthProperty().addListener(o -> this.redraw());
-		canvas.heightProperty().addListener(o -> this.redraw());
+		canvas.widthProperty().addListener(o -> this.redrawAll());
+		canvas.heightProperty().addListener(o -> this.redrawAll());
 
 		// setup event listeners
 		setOnKeyPressed(this::keyPressed);
@@ -140,60 +164,76 @@ public class ComputerPane extends Pane implements EmulatedComputer.Listener {
 		}
 
 		synchronized (computer.terminal) {
-			val g = canvas.getGraphicsContext2D();
-
-			// cache some important values as primitives
+			// the framebuffer is drawn at the font scale, and then scaled to fit the canvas
 			double fontScale = termScale.get();
 			if (JFXPlugin.doubleFontScale.get()) fontScale *= 2;
 
-			double m = margin.get();
-			double cw = charWidth.get(), ch = charHeight.get();
-			int tw = computer.terminal.getWidth(), th = computer.terminal.getHeight();
-
-			// current position offsets
-			double ox = 0, oy = 0;
-
-			// height/width of current position
-			double height, width;
-
-			TextBuffer bg, fg, text;
+			computer.terminal.drainDamage(damage);
+			if (validateRasterizer(fontScale) || redrawAll) {
+				damage.set(0, computer.terminal.getHeight());
+				redrawAll = false;
+			}
 
-			Image charImg;
+			// the framebuffer keeps its contents between frames, so the lines the
+			// cursor was and is on must be redrawn to erase or draw it
+			if (lastCursorY >= 0) damage.set(lastCursorY);
+			int cursorY = computer.terminal.getCursorY();
+			if (cursorY >= 0) damage.set(cursorY);
 
-			for (int y = 0; y < th; y++) {
-				height = ch + ((y == 0 || y == th - 1) ? m : 0);
+			rasterizer.render(computer.terminal, paletteAdapter, damage);
 
-				bg = computer.terminal.getBackgroundColourLine(y);
-				fg = computer.terminal.getTextColourLine(y);
-				text = computer.terminal.getLine(y);
+			if (cursorBlink()) {
+				rasterizer.drawGlyph('_', paletteAdapter.getArgb(computer.terminal.getTextColour()),
+					computer.terminal.getCursorX(), cursorY);
+			}
 
-				for (int x = 0; x < tw; x++) {
-					width = cw + ((x == 0 || x == tw - 1) ? m : 0);
+			frame.getPixelWriter().setPixels(0, 0, rasterizer.getWidth(), rasterizer.getHeight(),
+				PixelFormat.getIntArgbPreInstance(), rasterizer.getPixels(), 0, rasterizer.getWidth());
+			canvas.getGraphicsContext2D().drawImage(frame, 0, 0, totalWidth.get(), totalHeight.get());
 
-					// draw background
-					g.setFill(paletteAdapter.getColor(bg.charAt(x)));
-					g.fillRect(ox, oy, width, height);
+			lastCursorY = cursorY;
+			lastBlink = cursorBlink();
+		}
+	}
 
-					// draw character
-					charImg = font.getCharImage(text.charAt(x), paletteAdapter.getColor(fg.charAt(x)), fontScale);
-					g.drawImage(charImg, ox + (x == 0 ? m : 0), oy + (y == 0 ? m : 0), cw, ch);
+	/**
+	 * Ensures the rasterizer and frame image exist and match the terminal's size
+	 * and the font scale, returning whether they were (re)created.
+	 */
+	private boolean validateRasterizer(double fontScale) {
+		int cellWidth = (int) Math.round(BASE_CHAR_WIDTH * fontScale);
+		int cellHeight = (int) Math.round(BASE_CHAR_HEIGHT * fontScale);
+		int tw = computer.terminal.getWidth(), th = computer.terminal.getHeight();
+
+		if (rasterizer != null && rasterizer.getColumns() == tw && rasterizer.getRows() == th
+			&& rasterizer.getWidth() == tw * cellWidth + rasterizerMargin(fontScale) * 2
+			&& rasterizer.getHeight() == th * cellHeight + rasterizerMargin(fontScale) * 2) {
+			return false;
+		}
 
-					ox += width;
-				}
+		Image bitmap = font.getBase();
+		int fontWidth = (int) bitmap.getWidth(), fontHeight = (int) bitmap.getHeight();
+		int[] fontPixels = new int[fontWidth * fontHeight];
+		bitmap.getPixelReader().getPixels(0, 0, fontWidth, fontHeight, PixelFormat.getIntArgbInstance(),
+			fontPixels, 0, fontWidth);
 
-				ox = 0;
-				oy += height;
-			}
+		rasterizer = new TerminalRasterizer(font, fontPixels, fontWidth, tw, th, cellWidth, cellHeight,
+			rasterizerMargin(fontScale));
+		frame = new WritableImage(rasterizer.getWidth(), rasterizer.getHeight());
+		return true;
+	}
 
-			// draw cursor
-			if (cursorBlink()) {
-				g.drawImage(
-						font.getCharImage('_', paletteAdapter.getColor(computer.terminal.getTextColour()), fontScale),
-						m + (cw * computer.terminal.getCursorX()), m + (ch * computer.terminal.getCursorY()), cw, ch);
-			}
+	private static int rasterizerMargin(double fontScale) {
+		return (int) Math.round(BASE_MARGIN * fontScale);
+	}
 
-			lastBlink = cursorBlink();
-		}
+	/**
+	 * Marks the whole terminal as needing to be redrawn on the next frame, and
+	 * schedules a redraw.
+	 */
+	private void redrawAll() {
+		redrawAll = true;
+		redraw();
 	}
 
 	@Override()
@@ -209,6 +249,7 @@ public class ComputerPane extends Pane implements EmulatedComputer.Listener {
 
 		if (computer.terminal.getPalette().isChanged()) {
 			repaint = true;
+			redrawAll = true;
 			computer.terminal.getPalette().setChanged(false);
 		}
 
@@ -348,28 +389,42 @@ public class ComputerPane extends Pane implements EmulatedComputer.Listener {
 
 	public boolean transferContents(Clipboard cb) {
 		if (cb.hasFiles()) {
-			try {
-				computer.copyFiles(cb.getFiles(), "/");
-
-				val a = new Alert(AlertType.INFORMATION);
-				a.setTitle("Files copied");
-				a.setHeaderText("Files copied");
-				a.setContentText("Files were successfully copied to computer ID " + computer.getID());
-				a.initStyle(StageStyle.UTILITY);
-				a.show();
-				return true;
-			} catch (IOException e1) {
-				log.error("Error copying files {}", cb.getFiles(), e1);
-
-				val a = new Alert(AlertType.ERROR);
-				a.setTitle("File copy error");
-				a.setHeaderText("File copy error");
-				a.setContentText("There was an error copying file to computer ID " + computer.getID() + ":\n"
-						+ e1.getLocalizedMessage() + "\n\nSee logs for more information");
+			// The clipboard may be a drag board, which is only valid during the event
+			val files = new ArrayList<File>(cb.getFiles());
+
+			// Copy in the background, so large trees don't freeze the window
+			val progressBar = new ProgressBar(0);
+			progressBar.setPrefWidth(300);
+			val progress = new Alert(AlertType.INFORMATION);
+			progress.setTitle("Copying files");
+			progress.setHeaderText("Copying files to computer ID " + computer.getID());
+			progress.getDialogPane().setContent(progressBar);
+			progress.initStyle(StageStyle.UTILITY);
+			progress.show();
+
+			computer.copyFilesAsync(files, "/", (copied, total) -> {
+				double fraction = total == 0 ? 1 : (double) copied / total;
+				Platform.runLater(() -> progressBar.setProgress(fraction));
+			}).whenComplete((result, e) -> Platform.runLater(() -> {
+				progress.close();
+
+				val a = new Alert(e == null ? AlertType.INFORMATION : AlertType.ERROR);
+				if (e == null) {
+					a.setTitle("Files copied");
+					a.setHeaderText("Files copied");
+					a.setContentText("Files were successfully copied to computer ID " + computer.getID());
+				} else {
+					log.error("Error copying files {}", files, e);
+
+					a.setTitle("File copy error");
+					a.setHeaderText("File copy error");
+					a.setContentText("There was an error copying file to computer ID " + computer.getID() + ":\n"
+							+ e.getLocalizedMessage() + "\n\nSee logs for more information");
+				}
 				a.initStyle(StageStyle.UTILITY);
 				a.show();
-				return false;
-			}
+			}));
+			return true;
 		} else if (cb.hasString()) {
 			computer.paste(cb.getString());
 			return true;
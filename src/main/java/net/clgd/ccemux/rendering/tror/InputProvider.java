@@ -1,45 +1,67 @@
 package net.clgd.ccemux.rendering.tror;
 
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Map;
-import java.util.Scanner;
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.annotation.Nonnull;
+
+import lombok.extern.slf4j.Slf4j;
 import net.clgd.ccemux.api.emulation.EmulatedComputer;
 
+@Slf4j
 public class InputProvider {
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * The maximum number of packets queued for each computer
+	 */
+	private static final int QUEUE_CAPACITY = 256;
+
 	private static InputProvider stdinProvider;
 	private static final Object lock = new Object();
 
-	private final Map<Integer, BlockingDeque<InputPacket>> events = new HashMap<>();
-	private final Thread thread;
-
-	public InputProvider(InputStream stream) {
-		thread = new Thread(() -> {
-			try (Scanner scanner = new Scanner(stream, "UTF-8")) {
-			while (scanner.hasNextLine()) {
-				String line = scanner.nextLine();
-				int metaStart = line.indexOf(':');
-				int metaEnd = line.indexOf(';');
-
-				if (metaStart < 0 || metaEnd < 0 || metaEnd < metaStart) continue;
-
-				String code = line.substring(0, metaStart);
-				String meta = line.substring(metaStart + 1, metaEnd);
-				String payload = line.substring(metaEnd + 1);
-
-				int computer;
-				try {
-					computer = Integer.parseInt(meta);
-				} catch (NumberFormatException e) {
-					e.printStackTrace();
-					continue;
-				}
+	private final Map<Integer, InputQueue> events = new ConcurrentHashMap<>();
 
-				getQueue(computer).add(new InputPacket(code, payload));
-			}
+	/**
+	 * Packets for computers without a queue, and totals from queues which have
+	 * since been removed
+	 */
+	private final AtomicLong unrouted = new AtomicLong();
+	private final AtomicLong removedDropped = new AtomicLong();
+	private final AtomicLong removedCoalesced = new AtomicLong();
+
+	/**
+	 * Creates a provider with no input of its own, which is fed through
+	 * {@link #accept(int, InputPacket)}.
+	 */
+	InputProvider() {
+	}
+
+	public InputProvider(@Nonnull InputStream stream) {
+		this(Channels.newChannel(stream));
+	}
+
+	public InputProvider(@Nonnull ReadableByteChannel channel) {
+		TRoRDecoder decoder = new TRoRDecoder(this::accept);
+
+		Thread thread = new Thread(() -> {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			try (ReadableByteChannel input = channel) {
+				while (input.read(buffer) >= 0) {
+					buffer.flip();
+					decoder.decode(buffer);
+					buffer.clear();
+				}
+			} catch (IOException e) {
+				log.error("Failed to read TRoR input", e);
 			}
 		});
 		thread.setName("TRoR input provider");
@@ -47,35 +69,95 @@ public class InputProvider {
 		thread.start();
 	}
 
-	BlockingDeque<InputPacket> getQueue(EmulatedComputer computer) {
-		return getQueue(computer.getID());
+	/**
+	 * Queues a packet for the given computer. Packets for computers which
+	 * have no queue are dropped.
+	 */
+	void accept(int computer, @Nonnull InputPacket packet) {
+		InputQueue queue = events.get(computer);
+		if (queue == null) {
+			unrouted.incrementAndGet();
+		} else if (!queue.offer(packet) && queue.getOverflowDropped() == 1) {
+			// Warn once each time the queue fills up, until it has been drained
+			log.warn("Input queue for computer {} is full, dropping input ({} packets dropped so far)", computer,
+				queue.getDropped());
+		}
+	}
+
+	/**
+	 * Gets the input queue for a computer, creating it if needed
+	 */
+	@Nonnull
+	InputQueue getQueue(@Nonnull EmulatedComputer computer) {
+		return events.computeIfAbsent(computer.getID(), id -> new InputQueue(QUEUE_CAPACITY));
 	}
 
-	private BlockingDeque<InputPacket> getQueue(int id) {
-		synchronized (events) {
-			BlockingDeque<InputPacket> queue = events.get(id);
-			if (queue == null) events.put(id, queue = new LinkedBlockingDeque<>());
-			return queue;
+	/**
+	 * Removes the input queue for a computer, discarding any pending input
+	 */
+	void removeQueue(@Nonnull EmulatedComputer computer) {
+		InputQueue queue = events.remove(computer.getID());
+		if (queue != null) {
+			removedDropped.addAndGet(queue.getDropped());
+			removedCoalesced.addAndGet(queue.getCoalesced());
 		}
 	}
 
+	/**
+	 * Gets the number of packets dropped, either because their computer's
+	 * queue was full or because the computer has no queue
+	 */
+	public long getDroppedCount() {
+		long dropped = unrouted.get() + removedDropped.get();
+		for (InputQueue queue : events.values()) dropped += queue.getDropped();
+		return dropped;
+	}
+
+	/**
+	 * Gets the number of packets coalesced into the packet before them
+	 */
+	public long getCoalescedCount() {
+		long coalesced = removedCoalesced.get();
+		for (InputQueue queue : events.values()) coalesced += queue.getCoalesced();
+		return coalesced;
+	}
+
 	public static InputProvider getStdinProvider() {
 		if (stdinProvider == null) {
 			synchronized (lock) {
-				if (stdinProvider == null) stdinProvider = new InputProvider(System.in);
+				if (stdinProvider == null) {
+					// Read stdin's file directly, rather than through System.in's buffer
+					stdinProvider = new InputProvider(new FileInputStream(FileDescriptor.in).getChannel());
+				}
 			}
 		}
 
 		return stdinProvider;
 	}
 
-	static class InputPacket {
-		final String code;
-		final String payload;
+	/**
+	 * A single line of TRoR input. Events ({@code EV}) are decoded into their
+	 * name and arguments, other packets keep their raw payload.
+	 */
+	public static class InputPacket {
+		public final String code;
+		public final String payload;
+
+		public final String event;
+		public final Object[] arguments;
 
 		InputPacket(String code, String payload) {
 			this.code = code;
 			this.payload = payload;
+			this.event = null;
+			this.arguments = null;
+		}
+
+		InputPacket(String event, Object[] arguments) {
+			this.code = "EV";
+			this.payload = null;
+			this.event = event;
+			this.arguments = arguments;
 		}
 	}
 }
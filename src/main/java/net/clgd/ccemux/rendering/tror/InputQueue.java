@@ -0,0 +1,113 @@
+package net.clgd.ccemux.rendering.tror;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+
+import net.clgd.ccemux.rendering.tror.InputProvider.InputPacket;
+
+/**
+ * A bounded queue of input for a single computer, backed by a ring buffer.
+ *
+ * When the queue is full, new packets are dropped rather than queued. Mouse
+ * movement which repeats the last queued packet, such as consecutive
+ * {@code mouse_drag} events to the same cell, is coalesced into it.
+ */
+public final class InputQueue {
+	private final InputPacket[] packets;
+	private int head = 0;
+	private int size = 0;
+
+	private long dropped = 0;
+	private long coalesced = 0;
+
+	/**
+	 * The number of packets dropped since this queue was last empty
+	 */
+	private long overflowDropped = 0;
+
+	public InputQueue(int capacity) {
+		Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+		packets = new InputPacket[capacity];
+	}
+
+	/**
+	 * Adds a packet to the end of this queue
+	 *
+	 * @return Whether the packet was queued or coalesced, rather than dropped
+	 */
+	public synchronized boolean offer(@Nonnull InputPacket packet) {
+		if (size > 0 && isRedundant(packets[(head + size - 1) % packets.length], packet)) {
+			coalesced++;
+			return true;
+		}
+
+		if (size == packets.length) {
+			dropped++;
+			overflowDropped++;
+			return false;
+		}
+
+		packets[(head + size) % packets.length] = packet;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Removes the packet at the head of this queue
+	 *
+	 * @return The packet, or {@code null} if this queue is empty
+	 */
+	@Nullable
+	public synchronized InputPacket poll() {
+		if (size == 0) return null;
+
+		InputPacket packet = packets[head];
+		packets[head] = null;
+		head = (head + 1) % packets.length;
+		size--;
+		if (size == 0) overflowDropped = 0;
+		return packet;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of packets dropped because this queue was full
+	 */
+	public synchronized long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * Gets the number of packets dropped since this queue was last empty. This
+	 * is {@code 1} on the first drop of each period where the queue is full.
+	 */
+	public synchronized long getOverflowDropped() {
+		return overflowDropped;
+	}
+
+	/**
+	 * Gets the number of packets merged into the packet before them
+	 */
+	public synchronized long getCoalesced() {
+		return coalesced;
+	}
+
+	private static boolean isRedundant(InputPacket last, InputPacket packet) {
+		if (last.event == null || !last.event.equals(packet.event)) return false;
+
+		switch (packet.event) {
+			case "mouse_drag":
+			case "mouse_move":
+				return Arrays.equals(last.arguments, packet.arguments);
+			default:
+				return false;
+		}
+	}
+}
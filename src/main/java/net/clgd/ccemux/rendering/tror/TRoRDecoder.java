@@ -0,0 +1,295 @@
+package net.clgd.ccemux.rendering.tror;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A streaming decoder for TRoR input. Bytes are fed in as they arrive, in
+ * chunks of any size, and each complete line is passed to a {@link Handler}.
+ *
+ * {@code EV} payloads are tokenized as they are read, so events are produced
+ * with their arguments already converted, without building the line as a
+ * string first. Quoted arguments support the same escapes as Lua strings,
+ * including decimal ({@code \ddd}) and hexadecimal ({@code \xXX}) escapes.
+ */
+public final class TRoRDecoder {
+	@FunctionalInterface
+	public interface Handler {
+		void onPacket(int computer, @Nonnull InputProvider.InputPacket packet);
+	}
+
+	private enum State {
+		CODE, ID, PAYLOAD, EVENT, ARGUMENT, BARE, STRING, ESCAPE, DECIMAL, HEX, STRING_END, SKIP
+	}
+
+	private final Handler handler;
+
+	private State state = State.CODE;
+
+	/**
+	 * The bytes of the token currently being read
+	 */
+	private byte[] token = new byte[256];
+	private int length = 0;
+
+	private String code;
+	private boolean event;
+	private int id;
+	private boolean negative;
+	private int digits;
+
+	private String eventName;
+	private final List<Object> arguments = new ArrayList<>();
+	private byte quote;
+	private int escapeValue;
+	private int escapeDigits;
+
+	public TRoRDecoder(@Nonnull Handler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * Decodes all remaining bytes in the given buffer
+	 */
+	public void decode(@Nonnull ByteBuffer buffer) {
+		while (buffer.hasRemaining()) accept(buffer.get());
+	}
+
+	private void accept(byte b) {
+		switch (state) {
+			case CODE:
+				if (b == ':') {
+					code = takeString();
+					event = code.equals("EV");
+					id = 0;
+					digits = 0;
+					negative = false;
+					state = State.ID;
+				} else if (b == '\n') {
+					reset();
+				} else if (b != '\r') {
+					append(b);
+				}
+				break;
+			case ID:
+				if (b >= '0' && b <= '9') {
+					id = id * 10 + (b - '0');
+					digits++;
+				} else if (b == '-' && digits == 0 && !negative) {
+					negative = true;
+				} else if (b == ';' && digits > 0) {
+					if (negative) id = -id;
+					state = event ? State.EVENT : State.PAYLOAD;
+				} else {
+					state = b == '\n' ? State.CODE : State.SKIP;
+					reset();
+				}
+				break;
+			case PAYLOAD:
+				if (b == '\n') {
+					handler.onPacket(id, new InputProvider.InputPacket(code, takeString()));
+					reset();
+				} else if (b != '\r') {
+					append(b);
+				}
+				break;
+			case EVENT:
+				if (b == ',') {
+					eventName = takeString();
+					state = State.ARGUMENT;
+				} else if (b == '\n') {
+					eventName = takeString();
+					finishEvent();
+				} else if (b != '\r') {
+					append(b);
+				}
+				break;
+			case ARGUMENT:
+				if (b == '"' || b == '\'') {
+					quote = b;
+					state = State.STRING;
+				} else if (b == ',') {
+					arguments.add(takeValue());
+				} else if (b == '\n') {
+					finishEvent();
+				} else if (b != '\r') {
+					append(b);
+					state = State.BARE;
+				}
+				break;
+			case BARE:
+				if (b == ',') {
+					arguments.add(takeValue());
+					state = State.ARGUMENT;
+				} else if (b == '\n') {
+					arguments.add(takeValue());
+					finishEvent();
+				} else if (b != '\r') {
+					append(b);
+				}
+				break;
+			case STRING:
+				if (b == quote) {
+					arguments.add(takeString());
+					state = State.STRING_END;
+				} else if (b == '\\') {
+					state = State.ESCAPE;
+				} else if (b == '\n') {
+					// Unterminated string, take what we have
+					arguments.add(takeString());
+					finishEvent();
+				} else {
+					append(b);
+				}
+				break;
+			case ESCAPE:
+				state = State.STRING;
+				switch (b) {
+					case 'a': append((byte) 0x7); break;
+					case 'b': append((byte) '\b'); break;
+					case 'f': append((byte) '\f'); break;
+					case 'n': append((byte) '\n'); break;
+					case 'r': append((byte) '\r'); break;
+					case 't': append((byte) '\t'); break;
+					case 'v': append((byte) 0xB); break;
+					case '\\': append((byte) '\\'); break;
+					case '\'': append((byte) '\''); break;
+					case '"': append((byte) '"'); break;
+					case 'x':
+						escapeValue = 0;
+						escapeDigits = 0;
+						state = State.HEX;
+						break;
+					case '\n':
+						// Unterminated string, take what we have
+						arguments.add(takeString());
+						finishEvent();
+						break;
+					default:
+						if (b >= '0' && b <= '9') {
+							escapeValue = b - '0';
+							escapeDigits = 1;
+							state = State.DECIMAL;
+						}
+						break;
+				}
+				break;
+			case DECIMAL:
+				if (b >= '0' && b <= '9' && escapeDigits < 3) {
+					escapeValue = escapeValue * 10 + (b - '0');
+					escapeDigits++;
+				} else {
+					appendChar(escapeValue);
+					state = State.STRING;
+					accept(b);
+				}
+				break;
+			case HEX: {
+				int digit = Character.digit(b, 16);
+				if (digit >= 0 && escapeDigits < 2) {
+					escapeValue = escapeValue * 16 + digit;
+					escapeDigits++;
+				} else {
+					if (escapeDigits > 0) appendChar(escapeValue);
+					state = State.STRING;
+					accept(b);
+				}
+				break;
+			}
+			case STRING_END:
+				if (b == ',') {
+					state = State.ARGUMENT;
+				} else if (b == '\n') {
+					finishEvent();
+				}
+				break;
+			case SKIP:
+				if (b == '\n') state = State.CODE;
+				break;
+		}
+	}
+
+	private void finishEvent() {
+		handler.onPacket(id, new InputProvider.InputPacket(eventName, arguments.toArray()));
+		arguments.clear();
+		eventName = null;
+		reset();
+	}
+
+	private void reset() {
+		length = 0;
+		if (state != State.SKIP) state = State.CODE;
+	}
+
+	private void append(byte b) {
+		if (length == token.length) token = Arrays.copyOf(token, length * 2);
+		token[length++] = b;
+	}
+
+	/**
+	 * Appends a character from a numeric escape. Lua strings are sequences of
+	 * bytes, which ComputerCraft maps to the characters 0-255.
+	 */
+	private void appendChar(int value) {
+		if (value > 0xFF) return;
+
+		if (value < 0x80) {
+			append((byte) value);
+		} else {
+			append((byte) (0xC0 | (value >> 6)));
+			append((byte) (0x80 | (value & 0x3F)));
+		}
+	}
+
+	private String takeString() {
+		String value = new String(token, 0, length, StandardCharsets.UTF_8);
+		length = 0;
+		return value;
+	}
+
+	/**
+	 * Converts an unquoted argument to {@code nil}, a boolean, or a number
+	 */
+	private Object takeValue() {
+		int length = this.length;
+		this.length = 0;
+
+		if (matches("nil", length)) return null;
+		if (matches("true", length)) return true;
+		if (matches("false", length)) return false;
+		if (length == 0) return null;
+
+		// Fast path for integers, which covers key codes and mouse positions
+		int start = token[0] == '-' ? 1 : 0;
+		if (length > start && length - start <= 15) {
+			long value = 0;
+			int i = start;
+			for (; i < length; i++) {
+				byte b = token[i];
+				if (b < '0' || b > '9') break;
+				value = value * 10 + (b - '0');
+			}
+
+			if (i == length) return (double) (start == 1 ? -value : value);
+		}
+
+		try {
+			return Double.parseDouble(new String(token, 0, length, StandardCharsets.ISO_8859_1));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private boolean matches(String value, int length) {
+		if (value.length() != length) return false;
+		for (int i = 0; i < length; i++) {
+			if (token[i] != value.charAt(i)) return false;
+		}
+		return true;
+	}
+}
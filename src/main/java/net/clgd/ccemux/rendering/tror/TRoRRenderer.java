@@ -1,15 +1,19 @@
 package net.clgd.ccemux.rendering.tror;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.UnsupportedEncodingException;
-import java.io.Writer;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.BlockingDeque;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.clgd.ccemux.api.Utils;
 import net.clgd.ccemux.api.emulation.EmuConfig;
@@ -17,34 +21,87 @@ import net.clgd.ccemux.api.emulation.EmulatedComputer;
 import net.clgd.ccemux.api.emulation.EmulatedPalette;
 import net.clgd.ccemux.api.emulation.EmulatedTerminal;
 import net.clgd.ccemux.api.rendering.Renderer;
-
+import net.clgd.ccemux.plugins.builtin.TRoRPlugin.TRoRConfig;
+
+/**
+ * A renderer which writes terminal changes to stdout, and reads input from
+ * stdin, using the TRoR protocol. When given a {@link TRoRServer}, it is used
+ * for output and input instead, and clients which connect or fall behind are
+ * sent a snapshot of the entire terminal.
+ *
+ * By default every change is written and flushed as it happens. In batch
+ * mode, changes are instead collected and sent as a single frame from
+ * {@link #onAdvance(double)}: superseded messages are dropped, and each
+ * changed line is sent as one {@code TY} blit.
+ *
+ * In binary mode, each message is written as the two character message code,
+ * the computer ID and the payload length as big-endian 32-bit integers, then
+ * the UTF-8 encoded payload, rather than as a line of text.
+ */
 public class TRoRRenderer implements Renderer, EmulatedTerminal.Listener, EmulatedPalette.ColorChangeListener {
 	private final EmulatedComputer computer;
 	private final EmuConfig config;
 
 	private final List<Renderer.Listener> listeners = new ArrayList<>();
 
-	private final BlockingDeque<InputProvider.InputPacket> events;
-
-	private final Writer output;
-	private boolean isVisible = true;
-
-	public TRoRRenderer(EmulatedComputer computer, EmuConfig config) {
+	private final InputProvider input;
+	private final InputQueue events;
+
+	private final OutputStream output;
+	private final TRoRServer server;
+
+	/**
+	 * The sync generation of each client when it was last sent a snapshot.
+	 * This is only used from {@link #onAdvance(double)}.
+	 */
+	private final Map<TRoRServer.Client, Long> synced = new HashMap<>();
+	private final boolean batch;
+	private final boolean binary;
+
+	/**
+	 * Messages waiting to be flushed to the output, guarded by this
+	 */
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+	/**
+	 * The frame being built in {@link #sendFrame()}
+	 */
+	private final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+	private final BitSet frameLines = new BitSet();
+
+	/**
+	 * Changes since the last frame was sent in batch mode, guarded by this
+	 */
+	private final BitSet dirtyLines = new BitSet();
+	private int dirtyPalette = 0;
+	private boolean dirtySize, dirtyCursor, dirtyBlink, dirtyColours;
+
+	private volatile boolean isVisible = true;
+
+	public TRoRRenderer(EmulatedComputer computer, EmuConfig config, TRoRConfig rendererConfig, @Nullable TRoRServer server) {
 		this.computer = computer;
 		this.config = config;
+		this.server = server;
 
-		try {
-			output = new OutputStreamWriter(System.out, "UTF-8");
-		} catch (UnsupportedEncodingException e) {
-			throw new RuntimeException(e);
-		}
+		output = server == null ? System.out : server.getOutput();
+		batch = rendererConfig.batch.get();
+		binary = rendererConfig.binary.get();
 
 		computer.terminal.addListener(this);
 		computer.terminal.getPalette().addListener(this);
 
-		events = InputProvider.getStdinProvider().getQueue(computer);
+		input = server == null ? InputProvider.getStdinProvider() : server.getInput();
+		events = input.getQueue(computer);
+		if (server != null) {
+			// Existing clients see this computer's initial state like any other change
+			for (TRoRServer.Client client : server.getClients()) synced.put(client, client.getSyncGeneration());
+		}
 
-		resize(computer.terminal.getWidth(), computer.terminal.getHeight());
+		if (batch) {
+			invalidate();
+		} else {
+			resize(computer.terminal.getWidth(), computer.terminal.getHeight());
+		}
 	}
 
 	@Override
@@ -67,40 +124,54 @@ public class TRoRRenderer implements Renderer, EmulatedTerminal.Listener, Emulat
 		if (isVisible != visible) {
 			isVisible = visible;
 
-			if (visible) {
-				// Broadcast the entire terminal state to ensure the remote is
-				// in sync.
-				EmulatedTerminal terminal = computer.terminal;
-				setCursorPos(terminal.getCursorX(), terminal.getCursorY());
-				setCursorBlink(terminal.getCursorBlink());
-				resize(terminal.getWidth(), terminal.getHeight());
-
-				StringBuilder builder = new StringBuilder();
-				for (int y = 0; y < terminal.getHeight(); y++) {
-					if (y > 0) {
-						builder.append(':');
-					}
+			if (visible) resync();
+		}
+	}
+
+	/**
+	 * Sends the entire terminal state, to ensure the remote is in sync
+	 */
+	private void resync() {
+		if (batch) {
+			// The next frame will resend everything
+			invalidate();
+			return;
+		}
+
+		EmulatedTerminal terminal = computer.terminal;
+		setCursorPos(terminal.getCursorX(), terminal.getCursorY());
+		setCursorBlink(terminal.getCursorBlink());
+		resize(terminal.getWidth(), terminal.getHeight());
 
-					builder.append(terminal.getTextColourLine(y).m_text);
-					builder.append(',');
-					builder.append(terminal.getBackgroundColourLine(y).m_text);
-					builder.append(',');
-					builder.append(terminal.getLine(y).m_text);
-				}
-				sendLine("TV", builder.toString());
-
-				EmulatedPalette palette = terminal.getPalette();
-				for (int i = 0; i < 16; i++) {
-					double[] colour = palette.getColour(i);
-					setColour(i, colour[0], colour[1], colour[2]);
-				}
+		StringBuilder builder = new StringBuilder();
+		for (int y = 0; y < terminal.getHeight(); y++) {
+			if (y > 0) {
+				builder.append(':');
 			}
+
+			builder.append(terminal.getTextColourLine(y).m_text);
+			builder.append(',');
+			builder.append(terminal.getBackgroundColourLine(y).m_text);
+			builder.append(',');
+			builder.append(terminal.getLine(y).m_text);
+		}
+		sendLine("TV", builder.toString());
+
+		EmulatedPalette palette = terminal.getPalette();
+		for (int i = 0; i < 16; i++) {
+			double[] colour = palette.getColour(i);
+			setColour(i, colour[0], colour[1], colour[2]);
 		}
 	}
 
 	@Override
 	public void dispose() {
 		sendLine("SC", "");
+		synchronized (this) {
+			flush();
+		}
+
+		input.removeQueue(computer);
 	}
 
 	@Override
@@ -108,91 +179,9 @@ public class TRoRRenderer implements Renderer, EmulatedTerminal.Listener, Emulat
 		InputProvider.InputPacket packet;
 		while ((packet = events.poll()) != null) {
 			switch (packet.code) {
-				case "EV": {
-					String payload = packet.payload;
-					int index = payload.indexOf(',');
-					if (index < 0) {
-						index = payload.length();
-					}
-
-					String event = payload.substring(0, index);
-					List<Object> args = new ArrayList<>();
-					index++;
-					while (index < payload.length()) {
-						char startChar = payload.charAt(index);
-						if (startChar == '"' || startChar == '\'') {
-							StringBuilder builder = new StringBuilder();
-							index++;
-							while (index < payload.length() - 1) {
-								char current = payload.charAt(index++);
-
-								if (current == startChar) {
-									break;
-								} else if (current == '\\') {
-									current = payload.charAt(index++);
-									if (current == 'a') {
-										builder.append((char) 0x7);
-									} else if (current == 'b') {
-										builder.append('\b');
-									} else if (current == 'f') {
-										builder.append('\f');
-									} else if (current == 'n') {
-										builder.append('\n');
-									} else if (current == 'r') {
-										builder.append('\r');
-									} else if (current == 't') {
-										builder.append('\t');
-									} else if (current == 'v') {
-										builder.append((char) 0xB);
-									} else if (current == '\\') {
-										builder.append('\\');
-									} else if (current == '\'') {
-										builder.append('\'');
-									} else if (current == '\"') {
-										builder.append('\"');
-									}
-									// TODO: Support for numeric escape codes.
-								} else {
-									builder.append(current);
-								}
-							}
-
-							args.add(builder.toString());
-							if (index >= payload.length() - 1 || payload.charAt(index) == ',') {
-								index++;
-							}
-						} else {
-							int next = payload.indexOf(',', index);
-							if (next < 0) {
-								next = payload.length();
-							}
-							String arg = payload.substring(index, next);
-							switch (arg) {
-								case "nil":
-									args.add(null);
-									break;
-								case "true":
-									args.add(true);
-									break;
-								case "false":
-									args.add(false);
-									break;
-								default:
-									try {
-										args.add(Double.parseDouble(arg));
-									} catch (NumberFormatException e) {
-										args.add(null);
-									}
-									break;
-							}
-
-							index = next + 1;
-						}
-					}
-
-					computer.queueEvent(event, args.toArray());
+				case "EV":
+					computer.queueEvent(packet.event, packet.arguments);
 					break;
-				}
 				case "XA":
 					switch (packet.payload.toLowerCase(Locale.ENGLISH)) {
 						case "shutdown":
@@ -210,78 +199,285 @@ public class TRoRRenderer implements Renderer, EmulatedTerminal.Listener, Emulat
 					break;
 			}
 		}
+
+		if (batch) sendFrame();
+		if (server != null) syncClients();
 	}
 
-	private void sendLine(String mode, String line) {
-		if (!isVisible) {
-			return;
+	/**
+	 * Sends a snapshot to each client which has connected or caught up since
+	 * it was last sent one. Other clients are unaffected.
+	 */
+	private void syncClients() {
+		Collection<TRoRServer.Client> clients = server.getClients();
+		if (synced.size() > clients.size()) synced.keySet().retainAll(clients);
+
+		for (TRoRServer.Client client : clients) {
+			long generation = client.getSyncGeneration();
+			Long last = synced.get(client);
+			if (last == null || last != generation) {
+				synced.put(client, generation);
+				if (isVisible) sendSnapshot(client);
+			}
+		}
+	}
+
+	private void sendSnapshot(TRoRServer.Client client) {
+		ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		EmulatedTerminal terminal = computer.terminal;
+
+		synchronized (terminal) {
+			BitSet lines = new BitSet();
+			lines.set(0, terminal.getHeight());
+			encodeState(snapshot, terminal, lines, 0xFFFF, true, true, true, true);
+			client.send(snapshot.toByteArray());
+		}
+	}
+
+	private void encode(ByteArrayOutputStream out, String mode, String line) {
+		if (binary) {
+			byte[] payload = line.getBytes(StandardCharsets.UTF_8);
+			out.write(mode.charAt(0));
+			out.write(mode.charAt(1));
+			writeInt(out, computer.getID());
+			writeInt(out, payload.length);
+			out.write(payload, 0, payload.length);
+		} else {
+			byte[] bytes = (mode + ':' + computer.getID() + ';' + line + '\n').getBytes(StandardCharsets.UTF_8);
+			out.write(bytes, 0, bytes.length);
 		}
+	}
+
+	private static void writeInt(ByteArrayOutputStream out, int value) {
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	private void flush() {
+		if (buffer.size() == 0) return;
 
 		try {
-			output.write(mode);
-			output.write(':');
-			output.write(Integer.toString(computer.getID()));
-			output.write(';');
-			output.write(line);
-			output.write('\n');
+			buffer.writeTo(output);
 			output.flush();
 		} catch (IOException e) {
 			throw new RuntimeException(e);
+		} finally {
+			buffer.reset();
 		}
 	}
 
+	private synchronized void sendLine(String mode, String line) {
+		if (!isVisible) {
+			return;
+		}
+
+		encode(buffer, mode, line);
+		if (!batch) flush();
+	}
+
+	/**
+	 * Sends everything which has changed since the last frame in one write
+	 */
+	private void sendFrame() {
+		int palette;
+		boolean size, cursor, blink, colours;
+		synchronized (this) {
+			if (!isVisible) return;
+
+			frameLines.clear();
+			frameLines.or(dirtyLines);
+			dirtyLines.clear();
+
+			palette = dirtyPalette;
+			size = dirtySize;
+			cursor = dirtyCursor;
+			blink = dirtyBlink;
+			colours = dirtyColours;
+			dirtyPalette = 0;
+			dirtySize = dirtyCursor = dirtyBlink = dirtyColours = false;
+		}
+
+		if (frameLines.isEmpty() && palette == 0 && !size && !cursor && !blink && !colours) return;
+
+		// The terminal is read without holding our lock, as it may call us while holding its own
+		EmulatedTerminal terminal = computer.terminal;
+		synchronized (terminal) {
+			encodeState(frame, terminal, frameLines, palette, size, cursor, blink, colours);
+		}
+
+		synchronized (this) {
+			try {
+				frame.writeTo(buffer);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			flush();
+		}
+		frame.reset();
+	}
+
+	/**
+	 * Encodes the given parts of the terminal's state. This should be called
+	 * while holding the terminal's lock.
+	 */
+	private void encodeState(ByteArrayOutputStream out, EmulatedTerminal terminal, BitSet lines, int palette,
+			boolean size, boolean cursor, boolean blink, boolean colours) {
+		if (size) encode(out, "TR", terminal.getWidth() + "," + terminal.getHeight());
+
+		for (int i = 0; i < 16; i++) {
+			if ((palette & (1 << i)) != 0) {
+				double[] colour = terminal.getPalette().getColour(i);
+				encode(out, "TM", String.format("%c,%.4f,%.4f,%.4f", Utils.intToBase16(i), colour[0], colour[1], colour[2]));
+			}
+		}
+
+		for (int y = lines.nextSetBit(0); y >= 0 && y < terminal.getHeight(); y = lines.nextSetBit(y + 1)) {
+			encode(out, "TC", "0," + y);
+			encode(out, "TY", terminal.getTextColourLine(y).toString() + ","
+				+ terminal.getBackgroundColourLine(y).toString() + ","
+				+ terminal.getLine(y).toString().replace('\r', ' ').replace('\n', ' '));
+		}
+
+		if (cursor || !lines.isEmpty()) {
+			encode(out, "TC", terminal.getCursorX() + "," + terminal.getCursorY());
+		}
+
+		if (colours) {
+			encode(out, "TF", Character.toString(Utils.intToBase16(terminal.getTextColour())));
+			encode(out, "TK", Character.toString(Utils.intToBase16(terminal.getBackgroundColour())));
+		}
+
+		if (blink) encode(out, "TB", terminal.getCursorBlink() ? "true" : "false");
+	}
+
+	private void damageCursorLine() {
+		int y = computer.terminal.getCursorY();
+		synchronized (this) {
+			if (y >= 0) dirtyLines.set(y);
+		}
+	}
+
+	private synchronized void damageAll() {
+		dirtyLines.set(0, computer.terminal.getHeight());
+	}
+
+	private synchronized void invalidate() {
+		dirtyLines.set(0, computer.terminal.getHeight());
+		dirtyPalette = 0xFFFF;
+		dirtySize = dirtyCursor = dirtyBlink = dirtyColours = true;
+	}
+
 	@Override
 	public void write(@Nonnull String text) {
-		sendLine("TW", text.replace('\r', ' ').replace('\n', ' '));
+		if (batch) {
+			damageCursorLine();
+		} else {
+			sendLine("TW", text.replace('\r', ' ').replace('\n', ' '));
+		}
 	}
 
 	@Override
 	public void setCursorPos(int x, int y) {
-		sendLine("TC", x + "," + y);
+		if (batch) {
+			synchronized (this) {
+				dirtyCursor = true;
+			}
+		} else {
+			sendLine("TC", x + "," + y);
+		}
 	}
 
 	@Override
 	public void clear() {
-		sendLine("TE", "");
+		if (batch) {
+			damageAll();
+		} else {
+			sendLine("TE", "");
+		}
 	}
 
 	@Override
 	public void clearLine() {
-		sendLine("TL", "");
+		if (batch) {
+			damageCursorLine();
+		} else {
+			sendLine("TL", "");
+		}
 	}
 
 	@Override
 	public void scroll(int yDiff) {
-		sendLine("TS", "");
+		if (batch) {
+			damageAll();
+		} else {
+			sendLine("TS", "");
+		}
 	}
 
 	@Override
 	public void setCursorBlink(boolean blink) {
-		sendLine("TB", blink ? "true" : "false");
+		if (batch) {
+			synchronized (this) {
+				dirtyBlink = true;
+			}
+		} else {
+			sendLine("TB", blink ? "true" : "false");
+		}
 	}
 
 	@Override
 	public void setTextColour(int colour) {
-		sendLine("TF", Character.toString(Utils.intToBase16(colour)));
+		if (batch) {
+			synchronized (this) {
+				dirtyColours = true;
+			}
+		} else {
+			sendLine("TF", Character.toString(Utils.intToBase16(colour)));
+		}
 	}
 
 	@Override
 	public void setBackgroundColour(int colour) {
-		sendLine("TK", Character.toString(Utils.intToBase16(colour)));
+		if (batch) {
+			synchronized (this) {
+				dirtyColours = true;
+			}
+		} else {
+			sendLine("TK", Character.toString(Utils.intToBase16(colour)));
+		}
 	}
 
 	@Override
 	public void setColour(int index, double r, double g, double b) {
-		sendLine("TM", String.format("%c,%.4f,%.4f,%.4f", Utils.intToBase16(index), r, g, b));
+		if (batch) {
+			synchronized (this) {
+				dirtyPalette |= 1 << index;
+			}
+		} else {
+			sendLine("TM", String.format("%c,%.4f,%.4f,%.4f", Utils.intToBase16(index), r, g, b));
+		}
 	}
 
 	@Override
 	public void resize(int width, int height) {
-		sendLine("TR", width + "," + height);
+		if (batch) {
+			synchronized (this) {
+				dirtySize = true;
+				dirtyLines.set(0, height);
+			}
+		} else {
+			sendLine("TR", width + "," + height);
+		}
 	}
 
 	@Override
 	public void blit(@Nonnull String text, @Nonnull String textColour, @Nonnull String backgroundColour) {
-		sendLine("TY", textColour + "," + backgroundColour + "," + text.replace('\r', ' ').replace('\n', ' '));
+		if (batch) {
+			damageCursorLine();
+		} else {
+			sendLine("TY", textColour + "," + backgroundColour + "," + text.replace('\r', ' ').replace('\n', ' '));
+		}
 	}
 }
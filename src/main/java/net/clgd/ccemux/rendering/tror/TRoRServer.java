@@ -0,0 +1,234 @@
+package net.clgd.ccemux.rendering.tror;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves TRoR to any number of clients over TCP. Every client receives the
+ * output of every computer, and may send input to any of them.
+ *
+ * Output is written without blocking: each client has its own write buffer,
+ * and once a client's buffer is full it is skipped rather than waited on. When
+ * it has caught up, or when it first connects, its
+ * {@linkplain Client#getSyncGeneration() sync generation} changes. Renderers
+ * then send their entire state to that client alone, so other clients only
+ * ever receive incremental updates.
+ */
+@Slf4j
+public class TRoRServer implements AutoCloseable {
+	private static final WriteBufferWaterMark WATER_MARK = new WriteBufferWaterMark(256 * 1024, 1024 * 1024);
+
+	private final EventLoopGroup bossGroup;
+	private final EventLoopGroup workerGroup;
+	private final Channel server;
+
+	private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+
+	private final InputProvider input = new InputProvider();
+	private final OutputStream output = new OutputStream() {
+		@Override
+		public void write(int b) {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(@Nonnull byte[] b, int off, int len) {
+			broadcast(b, off, len);
+		}
+	};
+
+	/**
+	 * Starts a server listening on the given address
+	 *
+	 * @throws InterruptedException If interrupted while binding
+	 */
+	public TRoRServer(@Nonnull String host, int port) throws InterruptedException {
+		bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("TRoR server", true));
+		workerGroup = new NioEventLoopGroup(0, new DefaultThreadFactory("TRoR client", true));
+
+		try {
+			server = new ServerBootstrap()
+				.group(bossGroup, workerGroup)
+				.channel(NioServerSocketChannel.class)
+				.childOption(ChannelOption.TCP_NODELAY, true)
+				.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, WATER_MARK)
+				.childHandler(new ChannelInitializer<SocketChannel>() {
+					@Override
+					protected void initChannel(SocketChannel ch) {
+						ch.pipeline().addLast(new FlushConsolidationHandler(256, true), new Client(ch));
+					}
+				})
+				.bind(new InetSocketAddress(host, port))
+				.sync()
+				.channel();
+		} catch (Exception e) {
+			bossGroup.shutdownGracefully();
+			workerGroup.shutdownGracefully();
+			throw e;
+		}
+
+		log.info("Listening for TRoR clients on {}", server.localAddress());
+	}
+
+	/**
+	 * Gets the stream renderers write their output to. Writes are copied to
+	 * every connected client and never block.
+	 */
+	@Nonnull
+	public OutputStream getOutput() {
+		return output;
+	}
+
+	/**
+	 * Gets the input received from every connected client
+	 */
+	@Nonnull
+	public InputProvider getInput() {
+		return input;
+	}
+
+	/**
+	 * Gets the connected clients
+	 */
+	@Nonnull
+	Collection<Client> getClients() {
+		return Collections.unmodifiableSet(clients);
+	}
+
+	/**
+	 * Gets the number of connected clients
+	 */
+	public int getClientCount() {
+		return clients.size();
+	}
+
+	private void broadcast(byte[] data, int offset, int length) {
+		if (clients.isEmpty()) return;
+
+		ByteBuf buf = Unpooled.copiedBuffer(data, offset, length);
+		try {
+			for (Client client : clients) client.write(buf);
+		} finally {
+			buf.release();
+		}
+	}
+
+	@Override
+	public void close() {
+		server.close().syncUninterruptibly();
+		workerGroup.shutdownGracefully();
+		bossGroup.shutdownGracefully();
+	}
+
+	/**
+	 * A connected client
+	 */
+	final class Client extends ChannelInboundHandlerAdapter {
+		private final Channel channel;
+		private final TRoRDecoder decoder = new TRoRDecoder(input::accept);
+
+		/**
+		 * Whether output has been dropped since this client's buffer filled up
+		 */
+		private volatile boolean stale = false;
+		private final AtomicLong syncGeneration = new AtomicLong();
+
+		Client(Channel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * Gets a counter which changes whenever this client needs the entire
+		 * state of every computer - either because it has just connected, or
+		 * because it has missed output while its write buffer was full.
+		 */
+		long getSyncGeneration() {
+			return syncGeneration.get();
+		}
+
+		/**
+		 * Sends data to this client alone, without blocking
+		 */
+		void send(@Nonnull byte[] data) {
+			ByteBuf buf = Unpooled.wrappedBuffer(data);
+			try {
+				write(buf);
+			} finally {
+				buf.release();
+			}
+		}
+
+		private void write(ByteBuf buf) {
+			if (channel.isWritable()) {
+				channel.writeAndFlush(buf.retainedDuplicate(), channel.voidPromise());
+			} else {
+				stale = true;
+			}
+		}
+
+		@Override
+		public void channelActive(ChannelHandlerContext ctx) {
+			log.info("TRoR client connected from {}", channel.remoteAddress());
+			syncGeneration.incrementAndGet();
+			clients.add(this);
+		}
+
+		@Override
+		public void channelInactive(ChannelHandlerContext ctx) {
+			log.info("TRoR client {} disconnected", channel.remoteAddress());
+			clients.remove(this);
+		}
+
+		@Override
+		public void channelRead(ChannelHandlerContext ctx, Object msg) {
+			ByteBuf buf = (ByteBuf) msg;
+			try {
+				for (ByteBuffer buffer : buf.nioBuffers()) decoder.decode(buffer);
+			} finally {
+				buf.release();
+			}
+		}
+
+		@Override
+		public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+			if (channel.isWritable() && stale) {
+				log.debug("TRoR client {} caught up, resending state", channel.remoteAddress());
+				stale = false;
+				syncGeneration.incrementAndGet();
+			}
+
+			ctx.fireChannelWritabilityChanged();
+		}
+
+		@Override
+		public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+			log.warn("Error in TRoR client {}, disconnecting", channel.remoteAddress(), cause);
+			ctx.close();
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package net.clgd.ccemux.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dan200.computercraft.core.filesystem.FileMount;
+import net.clgd.ccemux.api.emulation.EmulatedComputer;
+import net.clgd.ccemux.api.emulation.EmulatedTerminal;
+import net.clgd.ccemux.emulation.CCEmuX;
+import net.clgd.ccemux.emulation.EmulatedComputerImpl;
+import net.clgd.ccemux.init.UserConfig;
+import net.clgd.ccemux.plugins.PluginManager;
+import net.clgd.ccemux.rendering.headless.HeadlessRenderer;
+
+public class CopyFilesTest {
+	private Path dataDir, source, target;
+	private CCEmuX emu;
+
+	@Before
+	public void setUp() throws IOException {
+		dataDir = Files.createTempDirectory("ccemux-copy");
+		UserConfig config = new UserConfig(dataDir);
+		emu = new CCEmuX(config, (c, cfg) -> new HeadlessRenderer(c), new PluginManager(config), dataDir.toFile());
+
+		source = dataDir.resolve("source");
+		write(source.resolve("a.txt"), "a");
+		write(source.resolve("dir/b.txt"), "bb");
+		write(source.resolve("dir/sub/c.txt"), "ccc");
+
+		target = dataDir.resolve("target");
+		Files.createDirectories(target);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(dataDir.toFile());
+	}
+
+	private static void write(Path path, String contents) throws IOException {
+		Files.createDirectories(path.getParent());
+		Files.write(path, contents.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String read(Path path) throws IOException {
+		return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+	}
+
+	private EmulatedComputer computer(long capacity) {
+		return EmulatedComputerImpl.builder(emu, new EmulatedTerminal(51, 19)).id(0)
+			.rootMount(new FileMount(target.toFile(), capacity)).build();
+	}
+
+	@Test
+	public void testNested() throws IOException {
+		// The root location should not produce an absolute or empty path
+		computer(1024 * 1024).copyFiles(Collections.singletonList(source.toFile()), "/");
+
+		assertEquals("a", read(target.resolve("source/a.txt")));
+		assertEquals("bb", read(target.resolve("source/dir/b.txt")));
+		assertEquals("ccc", read(target.resolve("source/dir/sub/c.txt")));
+	}
+
+	@Test
+	public void testLocation() throws IOException {
+		File file = source.resolve("dir/b.txt").toFile();
+		computer(1024 * 1024).copyFiles(Collections.singletonList(file), "/folder/");
+
+		assertEquals("bb", read(target.resolve("folder/b.txt")));
+	}
+
+	@Test
+	public void testOutOfSpace() throws IOException {
+		write(source.resolve("large.bin"), new String(new char[64 * 1024]));
+
+		try {
+			computer(8 * 1024).copyFiles(Collections.singletonList(source.toFile()), "/");
+			fail("Expected the copy to fail");
+		} catch (IOException e) {
+			assertEquals("Not enough space on computer", e.getMessage());
+		}
+
+		// Nothing is written before the space check
+		String[] contents = target.toFile().list();
+		assertNotNull(contents);
+		assertEquals(0, contents.length);
+	}
+
+	@Test
+	public void testAsyncProgress() throws Exception {
+		List<long[]> progress = new ArrayList<>();
+		computer(1024 * 1024)
+			.copyFilesAsync(Collections.singletonList(source.toFile()), "/", (copied, total) -> {
+				synchronized (progress) {
+					progress.add(new long[] { copied, total });
+				}
+			})
+			.get();
+
+		assertEquals("ccc", read(target.resolve("source/dir/sub/c.txt")));
+		synchronized (progress) {
+			assertArrayEquals(new long[] { 0, 6 }, progress.get(0));
+			assertArrayEquals(new long[] { 6, 6 }, progress.get(progress.size() - 1));
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package net.clgd.ccemux.test;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import net.clgd.ccemux.rendering.headless.HeadlessRenderer;
+
+public class HeadlessRendererTest {
+	@Test
+	public void testClosedOnShutdown() {
+		// The computer is only used for toString, so none is needed here
+		HeadlessRenderer renderer = new HeadlessRenderer(null);
+		AtomicInteger closed = new AtomicInteger();
+		renderer.addListener(closed::incrementAndGet);
+
+		renderer.onShutdownChanged(false);
+		assertEquals(0, closed.get());
+
+		renderer.onShutdownChanged(true);
+		assertEquals(1, closed.get());
+	}
+}
@@ -0,0 +1,71 @@
+package net.clgd.ccemux.test;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import net.clgd.ccemux.rendering.tror.InputQueue;
+import net.clgd.ccemux.rendering.tror.TRoRDecoder;
+
+public class InputQueueTest {
+	private final InputQueue queue = new InputQueue(4);
+	private final TRoRDecoder decoder = new TRoRDecoder((id, packet) -> queue.offer(packet));
+
+	private void decode(String input) {
+		decoder.decode(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testBounded() {
+		for (int i = 0; i < 6; i++) decode("EV:0;char,'" + i + "'\n");
+
+		assertEquals(4, queue.size());
+		assertEquals(2, queue.getDropped());
+		for (int i = 0; i < 4; i++) assertArrayEquals(new Object[] { "" + i }, queue.poll().arguments);
+		assertNull(queue.poll());
+	}
+
+	@Test
+	public void testOverflowResets() {
+		for (int i = 0; i < 6; i++) decode("EV:0;char,'" + i + "'\n");
+		assertEquals(2, queue.getOverflowDropped());
+
+		// Draining part of the queue does not end the overflow
+		queue.poll();
+		assertEquals(2, queue.getOverflowDropped());
+
+		for (int i = 0; i < 3; i++) queue.poll();
+		assertEquals(0, queue.getOverflowDropped());
+
+		for (int i = 0; i < 5; i++) decode("EV:0;char,'" + i + "'\n");
+		assertEquals(1, queue.getOverflowDropped());
+		assertEquals(3, queue.getDropped());
+	}
+
+	@Test
+	public void testWraps() {
+		for (int i = 0; i < 10; i++) {
+			decode("EV:0;char,'" + i + "'\n");
+			assertArrayEquals(new Object[] { "" + i }, queue.poll().arguments);
+		}
+
+		assertEquals(0, queue.size());
+		assertEquals(0, queue.getDropped());
+	}
+
+	@Test
+	public void testCoalesce() {
+		decode("EV:0;mouse_drag,1,2,3\nEV:0;mouse_drag,1,2,3\nEV:0;mouse_drag,1,2,4\nEV:0;mouse_drag,1,2,4\n");
+		decode("EV:0;mouse_up,1,2,4\nEV:0;mouse_up,1,2,4\n");
+
+		assertEquals(4, queue.size());
+		assertEquals(2, queue.getCoalesced());
+		assertArrayEquals(new Object[] { 1.0, 2.0, 3.0 }, queue.poll().arguments);
+		assertArrayEquals(new Object[] { 1.0, 2.0, 4.0 }, queue.poll().arguments);
+		assertEquals("mouse_up", queue.poll().event);
+		assertEquals("mouse_up", queue.poll().event);
+	}
+}
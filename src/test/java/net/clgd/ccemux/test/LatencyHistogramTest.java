@@ -0,0 +1,40 @@
+package net.clgd.ccemux.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import net.clgd.ccemux.plugins.LatencyHistogram;
+
+public class LatencyHistogramTest {
+	@Test
+	public void testEmpty() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getValueAtPercentile(99));
+		assertEquals(0, histogram.getMean(), 0);
+	}
+
+	@Test
+	public void testExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 10; i++) histogram.record(i);
+
+		assertEquals(10, histogram.getCount());
+		assertEquals(10, histogram.getMax());
+		assertEquals(5.5, histogram.getMean(), 1e-9);
+		assertEquals(5, histogram.getValueAtPercentile(50));
+		assertEquals(10, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void testPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 99; i++) histogram.record(1_000_000);
+		histogram.record(50_000_000);
+
+		long p50 = histogram.getValueAtPercentile(50);
+		assertTrue("p50 was " + p50, p50 >= 1_000_000 && p50 <= 1_125_000);
+		assertEquals(50_000_000, histogram.getValueAtPercentile(100));
+	}
+}
@@ -0,0 +1,82 @@
+package net.clgd.ccemux.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import dan200.computercraft.api.lua.ILuaContext;
+import dan200.computercraft.api.lua.LuaException;
+import net.clgd.ccemux.api.lua.LuaAPI;
+import net.clgd.ccemux.api.lua.LuaFunction;
+
+public class LuaAPITest {
+	private static class TestAPI extends LuaAPI {
+		TestAPI() {
+			super("test");
+		}
+
+		@LuaFunction
+		public Object[] echo(Object[] args) {
+			return args;
+		}
+
+		@LuaFunction({ "context", "ctx" })
+		public Object[] context(ILuaContext context, Object[] args) {
+			return new Object[] { "context", args.length };
+		}
+
+		@LuaFunction
+		public Object[] fail(Object[] args) throws LuaException {
+			throw new LuaException("failed");
+		}
+
+		public Object[] notExposed(Object[] args) {
+			return null;
+		}
+	}
+
+	private static class BadAPI extends LuaAPI {
+		BadAPI() {
+			super("bad");
+		}
+
+		@LuaFunction
+		public String bad(Object[] args) {
+			return null;
+		}
+	}
+
+	private static int indexOf(LuaAPI api, String name) {
+		return Arrays.asList(api.getMethodNames()).indexOf(name);
+	}
+
+	@Test
+	public void testNames() {
+		TestAPI api = new TestAPI();
+		assertArrayEquals(new String[] { "test" }, api.getNames());
+		assertEquals(4, api.getMethodNames().length);
+		assertTrue(Arrays.asList(api.getMethodNames()).containsAll(Arrays.asList("echo", "context", "ctx", "fail")));
+	}
+
+	@Test
+	public void testCall() throws Exception {
+		TestAPI api = new TestAPI();
+		Object[] args = new Object[] { "a", 1.0 };
+
+		assertArrayEquals(args, api.callMethod(null, indexOf(api, "echo"), args));
+		assertArrayEquals(new Object[] { "context", 2 }, api.callMethod(null, indexOf(api, "ctx"), args));
+	}
+
+	@Test(expected = LuaException.class)
+	public void testException() throws Exception {
+		TestAPI api = new TestAPI();
+		api.callMethod(null, indexOf(api, "fail"), new Object[0]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadSignature() {
+		new BadAPI();
+	}
+}
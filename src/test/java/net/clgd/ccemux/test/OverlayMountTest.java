@@ -0,0 +1,124 @@
+package net.clgd.ccemux.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dan200.computercraft.core.filesystem.FileMount;
+import lombok.val;
+import net.clgd.ccemux.api.emulation.filesystem.OverlayMount;
+import net.clgd.ccemux.api.emulation.filesystem.VirtualDirectory;
+import net.clgd.ccemux.api.emulation.filesystem.VirtualFile;
+import net.clgd.ccemux.api.emulation.filesystem.VirtualMount;
+
+public class OverlayMountTest {
+	private File dir;
+	private VirtualMount base;
+	private OverlayMount mount;
+
+	@Before
+	public void setUp() throws IOException {
+		val builder = new VirtualDirectory.Builder();
+		builder.addEntry(Paths.get("file"), new VirtualFile("hello"));
+		builder.addEntry(Paths.get("folder/file2"), new VirtualFile("hello2"));
+		base = new VirtualMount(builder.build());
+
+		dir = Files.createTempDirectory("ccemux-overlay").toFile();
+		mount = new OverlayMount(base, new FileMount(dir, 1024 * 1024));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(dir);
+	}
+
+	private String read(String path) throws IOException {
+		return IOUtils.toString(mount.openForRead(path), StandardCharsets.UTF_8);
+	}
+
+	private void write(String path, String contents, boolean append) throws IOException {
+		try (OutputStream out = append ? mount.openForAppend(path) : mount.openForWrite(path)) {
+			out.write(contents.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private List<String> list(String path) throws IOException {
+		List<String> names = new ArrayList<>();
+		mount.list(path, names);
+		return names;
+	}
+
+	@Test
+	public void testReadBase() throws IOException {
+		assertTrue(mount.exists("folder/file2"));
+		assertTrue(mount.isDirectory("folder"));
+		assertEquals("hello2", read("folder/file2"));
+		assertEquals(5, mount.getSize("file"));
+	}
+
+	@Test
+	public void testWrite() throws IOException {
+		write("file", "changed", false);
+		write("folder/file3", "new", false);
+
+		assertEquals("changed", read("file"));
+		assertEquals("new", read("folder/file3"));
+		assertTrue(list("folder").containsAll(Arrays.asList("file2", "file3")));
+
+		// The base is unchanged
+		assertEquals("hello", IOUtils.toString(base.openForRead("file"), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testAppend() throws IOException {
+		write("folder/file2", " world", true);
+		assertEquals("hello2 world", read("folder/file2"));
+	}
+
+	@Test
+	public void testDelete() throws IOException {
+		mount.delete("folder");
+
+		assertFalse(mount.exists("folder"));
+		assertFalse(mount.exists("folder/file2"));
+		assertEquals(1, list("").size());
+
+		// Whiteouts persist
+		OverlayMount reopened = new OverlayMount(base, new FileMount(dir, 1024 * 1024));
+		assertFalse(reopened.exists("folder/file2"));
+
+		// The whiteout file itself is hidden
+		assertFalse(mount.exists(".overlay-whiteouts"));
+		assertFalse(mount.isDirectory(".overlay-whiteouts"));
+		try {
+			mount.getSize(".overlay-whiteouts");
+			fail("Expected the whiteout file to be hidden");
+		} catch (IOException ignored) {
+		}
+
+		// Recreating a deleted directory does not bring back its contents
+		mount.makeDirectory("folder");
+		assertTrue(mount.isDirectory("folder"));
+		assertTrue(list("folder").isEmpty());
+	}
+
+	@Test
+	public void testSharedBaseIsFree() throws IOException {
+		FileMount upper = new FileMount(dir, 1024);
+		assertEquals(upper.getRemainingSpace(), new OverlayMount(base, upper).getRemainingSpace());
+	}
+}
@@ -0,0 +1,77 @@
+package net.clgd.ccemux.test;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.clgd.ccemux.rendering.tror.InputProvider.InputPacket;
+import net.clgd.ccemux.rendering.tror.TRoRDecoder;
+
+public class TRoRDecoderTest {
+	private final List<Integer> ids = new ArrayList<>();
+	private final List<InputPacket> packets = new ArrayList<>();
+	private final TRoRDecoder decoder = new TRoRDecoder((id, packet) -> {
+		ids.add(id);
+		packets.add(packet);
+	});
+
+	private void decode(String input) {
+		decoder.decode(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testEvent() {
+		decode("EV:3;key,28,true\n");
+
+		assertEquals(1, packets.size());
+		assertEquals(3, (int) ids.get(0));
+		assertEquals("key", packets.get(0).event);
+		assertArrayEquals(new Object[] { 28.0, true }, packets.get(0).arguments);
+	}
+
+	@Test
+	public void testArguments() {
+		decode("EV:0;test,-1.5,nil,false,,\"a,b\",bad\n");
+
+		assertArrayEquals(new Object[] { -1.5, null, false, null, "a,b", null }, packets.get(0).arguments);
+	}
+
+	@Test
+	public void testEscapes() {
+		decode("EV:0;paste,'a\\tb\\65\\x41\\'\\\\',\"\\200\\0651\"\n");
+
+		assertArrayEquals(new Object[] { "a\tbAA'\\", "\u00c8A1" }, packets.get(0).arguments);
+	}
+
+	@Test
+	public void testPayload() {
+		decode("XA:1;shutdown\r\n");
+
+		assertEquals("XA", packets.get(0).code);
+		assertEquals("shutdown", packets.get(0).payload);
+	}
+
+	@Test
+	public void testSplitInput() {
+		byte[] input = "EV:12;char,'\u00e9'\n".getBytes(StandardCharsets.UTF_8);
+		for (byte b : input) decoder.decode(ByteBuffer.wrap(new byte[] { b }));
+
+		assertEquals(12, (int) ids.get(0));
+		assertArrayEquals(new Object[] { "\u00e9" }, packets.get(0).arguments);
+	}
+
+	@Test
+	public void testMalformed() {
+		decode("garbage\nEV:x;foo\nEV:2;bar\n");
+
+		assertEquals(1, packets.size());
+		assertEquals(2, (int) ids.get(0));
+		assertEquals("bar", packets.get(0).event);
+		assertArrayEquals(new Object[0], packets.get(0).arguments);
+	}
+}
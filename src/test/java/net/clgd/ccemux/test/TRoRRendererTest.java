@@ -0,0 +1,85 @@
+package net.clgd.ccemux.test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.clgd.ccemux.api.config.Group;
+import net.clgd.ccemux.api.emulation.EmulatedComputer;
+import net.clgd.ccemux.api.emulation.EmulatedTerminal;
+import net.clgd.ccemux.emulation.CCEmuX;
+import net.clgd.ccemux.emulation.EmulatedComputerImpl;
+import net.clgd.ccemux.init.UserConfig;
+import net.clgd.ccemux.plugins.PluginManager;
+import net.clgd.ccemux.plugins.builtin.TRoRPlugin;
+import net.clgd.ccemux.rendering.headless.HeadlessRenderer;
+import net.clgd.ccemux.rendering.tror.TRoRRenderer;
+
+public class TRoRRendererTest {
+	private Path dataDir;
+	private PrintStream stdout;
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+	private EmulatedTerminal terminal;
+	private TRoRRenderer renderer;
+
+	@Before
+	public void setUp() throws IOException {
+		stdout = System.out;
+		System.setOut(new PrintStream(output));
+
+		dataDir = Files.createTempDirectory("ccemux-tror");
+		UserConfig config = new UserConfig(dataDir);
+		CCEmuX emu = new CCEmuX(config, (c, cfg) -> new HeadlessRenderer(c), new PluginManager(config),
+			dataDir.toFile());
+
+		terminal = new EmulatedTerminal(5, 2);
+		EmulatedComputer computer = EmulatedComputerImpl.builder(emu, terminal).id(3).build();
+		TRoRPlugin.TRoRConfig rendererConfig = new TRoRPlugin.TRoRConfig(new Group("tror"));
+		rendererConfig.batch.set(true);
+		renderer = new TRoRRenderer(computer, config, rendererConfig, null);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		renderer.dispose();
+		System.setOut(stdout);
+		FileUtils.deleteDirectory(dataDir.toFile());
+	}
+
+	private String frame() {
+		renderer.onAdvance(0.05);
+		String frame = new String(output.toByteArray(), StandardCharsets.UTF_8);
+		output.reset();
+		return frame;
+	}
+
+	@Test
+	public void testBatchFrame() {
+		terminal.setCursorPos(0, 1);
+		terminal.blit("hello", "01234", "fedcb");
+
+		String frame = frame();
+		assertTrue(frame, frame.contains("TR:3;5,2\n"));
+		assertTrue(frame, frame.contains("TY:3;01234,fedcb,hello\n"));
+
+		// Only changed lines are sent in later frames
+		terminal.setCursorPos(0, 0);
+		terminal.blit("world", "00000", "fffff");
+
+		frame = frame();
+		assertTrue(frame, frame.contains("TY:3;00000,fffff,world\n"));
+		assertFalse(frame, frame.contains("hello"));
+		assertFalse(frame, frame.contains("TR:"));
+	}
+}
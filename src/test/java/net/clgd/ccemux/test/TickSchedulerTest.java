@@ -0,0 +1,69 @@
+package net.clgd.ccemux.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import net.clgd.ccemux.emulation.FixedRateTickScheduler;
+
+public class TickSchedulerTest {
+	/**
+	 * A clock which only moves when slept on, or when advanced by the test
+	 */
+	private static class FakeClock implements FixedRateTickScheduler.Clock {
+		long now = 0;
+
+		@Override
+		public long nanoTime() {
+			return now;
+		}
+
+		@Override
+		public void sleep(long nanos) {
+			now += nanos;
+		}
+
+		void advanceMillis(long millis) {
+			now += millis * 1_000_000L;
+		}
+	}
+
+	@Test
+	public void testTickLength() throws InterruptedException {
+		FakeClock clock = new FakeClock();
+		FixedRateTickScheduler scheduler = new FixedRateTickScheduler(20, 5, clock);
+		scheduler.start();
+
+		assertEquals(0.05, scheduler.awaitTick(), 1e-9);
+		assertEquals(0.05, scheduler.awaitTick(), 1e-9);
+		assertEquals(2, scheduler.getTickCount());
+		assertEquals(100_000_000L, clock.now);
+		assertEquals(0, scheduler.getLateTicks());
+	}
+
+	@Test
+	public void testCatchUp() throws InterruptedException {
+		FakeClock clock = new FakeClock();
+		FixedRateTickScheduler scheduler = new FixedRateTickScheduler(20, 2, clock);
+		scheduler.start();
+
+		// Fall 10 ticks behind
+		clock.advanceMillis(550);
+
+		scheduler.awaitTick();
+		assertEquals(1, scheduler.getLateTicks());
+		assertEquals(8, scheduler.getSkippedTicks());
+
+		// The remaining overdue ticks should run immediately
+		scheduler.awaitTick();
+		scheduler.awaitTick();
+		assertEquals(550_000_000L, clock.now);
+		assertEquals(3, scheduler.getLateTicks());
+
+		// And then we are back on schedule
+		scheduler.awaitTick();
+		assertEquals(600_000_000L, clock.now);
+		assertEquals(3, scheduler.getLateTicks());
+		assertEquals(4, scheduler.getTickCount());
+	}
+}
@@ -0,0 +1,40 @@
+package net.clgd.ccemux.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import dan200.computercraft.core.terminal.TextBuffer;
+import net.clgd.ccemux.api.Utils;
+
+public class UtilsTest {
+	@Test
+	public void testBase16ToInt() {
+		for (int i = 0; i < 16; i++) {
+			assertEquals(i, Utils.base16ToInt(Utils.intToBase16(i)));
+			assertEquals(i, Utils.base16ToInt(Character.toUpperCase(Utils.intToBase16(i))));
+		}
+
+		assertEquals(-1, Utils.base16ToInt('g'));
+		assertEquals(-1, Utils.base16ToInt(' '));
+		assertEquals(-1, Utils.base16ToInt('\u00e9'));
+	}
+
+	@Test
+	public void testBase16ToIntLine() {
+		byte[] out = new byte[4];
+		Utils.base16ToInt("0fA?z", out);
+		assertArrayEquals(new byte[] { 0, 15, 10, -1 }, out);
+	}
+
+	@Test
+	public void testBase16ToIntTextBuffer() {
+		byte[] out = new byte[4];
+		Utils.base16ToInt(new TextBuffer("0fA?z"), out);
+		assertArrayEquals(new byte[] { 0, 15, 10, -1 }, out);
+
+		// Shorter lines leave the rest of the output alone
+		Utils.base16ToInt(new TextBuffer("1"), out);
+		assertArrayEquals(new byte[] { 1, 15, 10, -1 }, out);
+	}
+}
@@ -4,6 +4,8 @@ import static java.nio.file.Paths.get;
 import static org.junit.Assert.*;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -30,6 +32,8 @@ public class VirtualMountTest {
 		builder.addEntry(Paths.get("file"), new VirtualFile("hello"));
 		builder.addEntry(Paths.get("folder/file2"), new VirtualFile("hello2"));
 		builder.addEntry(Paths.get("folder/folder2"), new VirtualDirectory());
+		builder.addEntry(Paths.get("direct"), VirtualFile.direct("hello3".getBytes(StandardCharsets.UTF_8)));
+		builder.addEntry(Paths.get("lazy"), new VirtualFile(VirtualMountTest.class.getResource("VirtualMountTest.class")));
 
 		rom = new VirtualMount(builder.build());
 	}
@@ -67,6 +71,18 @@ public class VirtualMountTest {
 		assertNull(rom.follow(get("file/child")));
 	}
 
+	@Test
+	public void testFollowString() {
+		assertEquals(rom.getRoot(), rom.follow(""));
+		assertEquals(rom.getRoot(), rom.follow("/"));
+		assertEquals(rom.getRoot().getEntry("file"), rom.follow("file"));
+		assertEquals(rom.getRoot().getEntry("file"), rom.follow("//./file"));
+		assertEquals(rom.getRoot().getEntry("file"), rom.follow("/folder/../file"));
+
+		assertNull(rom.follow("../file"));
+		assertNull(rom.follow("folder/nonexistent/file2"));
+	}
+
 	@Test
 	public void testExists() {
 		assertTrue(rom.exists("file"));
@@ -104,5 +120,25 @@ public class VirtualMountTest {
 	public void testRead() throws IOException {
 		assertEquals("hello", IOUtils.toString(rom.openForRead("file"), StandardCharsets.UTF_8));
 		assertEquals("hello2", IOUtils.toString(rom.openForRead("folder/file2"), StandardCharsets.UTF_8));
+		assertEquals("hello3", IOUtils.toString(rom.openForRead("direct"), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testReadChannel() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+		try (ReadableByteChannel channel = rom.openChannelForRead("folder/file2")) {
+			while (channel.read(buffer) >= 0) ;
+		}
+
+		buffer.flip();
+		assertEquals("hello2", StandardCharsets.UTF_8.decode(buffer).toString());
+	}
+
+	@Test
+	public void testLazy() throws IOException {
+		byte[] expected = IOUtils.toByteArray(VirtualMountTest.class.getResourceAsStream("VirtualMountTest.class"));
+
+		assertEquals(expected.length, rom.getSize("lazy"));
+		assertArrayEquals(expected, IOUtils.toByteArray(rom.openForRead("lazy")));
 	}
 }
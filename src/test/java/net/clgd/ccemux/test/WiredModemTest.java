@@ -0,0 +1,182 @@
+package net.clgd.ccemux.test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dan200.computercraft.api.filesystem.IMount;
+import dan200.computercraft.api.filesystem.IWritableMount;
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.api.peripheral.IComputerAccess;
+import net.clgd.ccemux.api.config.Group;
+import net.clgd.ccemux.api.emulation.EmulatedTerminal;
+import net.clgd.ccemux.config.LuaAdapter;
+import net.clgd.ccemux.emulation.CCEmuX;
+import net.clgd.ccemux.emulation.EmulatedComputerImpl;
+import net.clgd.ccemux.init.UserConfig;
+import net.clgd.ccemux.plugins.PluginManager;
+import net.clgd.ccemux.plugins.builtin.peripherals.WiredModemPeripheral;
+import net.clgd.ccemux.rendering.headless.HeadlessRenderer;
+
+public class WiredModemTest {
+	private static class Computer implements IComputerAccess {
+		final List<Object[]> events = new ArrayList<>();
+
+		@Override
+		public String mount(String desiredLocation, IMount mount) {
+			return null;
+		}
+
+		@Override
+		public String mount(String desiredLocation, IMount mount, String driveName) {
+			return null;
+		}
+
+		@Override
+		public String mountWritable(String desiredLocation, IWritableMount mount) {
+			return null;
+		}
+
+		@Override
+		public String mountWritable(String desiredLocation, IWritableMount mount, String driveName) {
+			return null;
+		}
+
+		@Override
+		public void unmount(String location) {}
+
+		@Override
+		public int getID() {
+			return 0;
+		}
+
+		@Override
+		public void queueEvent(String event, Object[] arguments) {
+			Object[] entry = new Object[arguments.length + 1];
+			entry[0] = event;
+			System.arraycopy(arguments, 0, entry, 1, arguments.length);
+			events.add(entry);
+		}
+
+		@Override
+		public String getAttachmentName() {
+			return "back";
+		}
+
+		int count(String event) {
+			int count = 0;
+			for (Object[] entry : events) if (entry[0].equals(event)) count++;
+			return count;
+		}
+	}
+
+	private Path dataDir;
+	private CCEmuX emu;
+
+	private final List<WiredModemPeripheral> modems = new ArrayList<>();
+	private final List<Computer> computers = new ArrayList<>();
+
+	@Before
+	public void setUp() throws IOException {
+		dataDir = Files.createTempDirectory("ccemux-wired");
+		UserConfig config = new UserConfig(dataDir);
+		emu = new CCEmuX(config, (c, cfg) -> new HeadlessRenderer(c), new PluginManager(config), dataDir.toFile());
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		for (int i = 0; i < modems.size(); i++) modems.get(i).detach(computers.get(i));
+		FileUtils.deleteDirectory(dataDir.toFile());
+	}
+
+	private Computer modem(int id, String network, int channel) throws LuaException, InterruptedException {
+		WiredModemPeripheral modem = new WiredModemPeripheral(
+			EmulatedComputerImpl.builder(emu, new EmulatedTerminal(51, 19)).id(id).build());
+		Group group = new Group("modem");
+		modem.configSetup(group);
+		LuaAdapter.fromLua(group, Collections.singletonMap("network", network));
+
+		Computer computer = new Computer();
+		modems.add(modem);
+		computers.add(computer);
+
+		modem.attach(computer);
+		if (channel >= 0) call(modems.size() - 1, 0, channel);
+		return computer;
+	}
+
+	private Object[] call(int index, int method, Object... arguments) throws LuaException, InterruptedException {
+		return modems.get(index).callMethod(computers.get(index), null, method, arguments);
+	}
+
+	private Map<?, ?> getNamesRemote(int index) throws LuaException, InterruptedException {
+		return (Map<?, ?>) call(index, 6)[0];
+	}
+
+	@Test
+	public void testTransmit() throws LuaException, InterruptedException {
+		Computer sender = modem(1, "transmit", 1);
+		Computer receiver = modem(2, "transmit", 1);
+		Computer otherChannel = modem(3, "transmit", 2);
+		Computer otherSegment = modem(4, "transmit-other", 1);
+
+		call(0, 4, 1, 5, "hello");
+
+		assertEquals(0, sender.count("modem_message"));
+		assertEquals(1, receiver.count("modem_message"));
+		assertEquals(0, otherChannel.count("modem_message"));
+		assertEquals(0, otherSegment.count("modem_message"));
+	}
+
+	@Test
+	public void testNamesRemote() throws LuaException, InterruptedException {
+		Computer first = modem(1, "names", -1);
+		modem(1, "names", -1);
+		modem(2, "names", -1);
+		modem(3, "names-other", -1);
+
+		// Both modems on computer 1 are visible under their own names
+		Map<?, ?> names = getNamesRemote(0);
+		assertEquals(2, names.size());
+		assertNotEquals(names.get(1), names.get(2));
+		assertEquals(2, first.count("peripheral"));
+		assertEquals(2, getNamesRemote(2).size());
+	}
+
+	@Test
+	public void testCallRemote() throws LuaException, InterruptedException {
+		modem(1, "call", -1);
+		modem(7, "call", -1);
+
+		Object name = getNamesRemote(0).get(1);
+		assertArrayEquals(new Object[] { "computer" }, call(0, 8, name));
+		assertArrayEquals(new Object[] { 7 }, call(0, 10, name, "getID"));
+	}
+
+	@Test
+	public void testDetach() throws LuaException, InterruptedException {
+		Computer remaining = modem(1, "detach", 1);
+		Computer leaving = modem(2, "detach", 1);
+		Object name = getNamesRemote(0).get(1);
+
+		modems.get(1).detach(leaving);
+
+		assertEquals(1, remaining.count("peripheral_detach"));
+		assertTrue(getNamesRemote(0).isEmpty());
+		assertArrayEquals(new Object[] { false }, call(0, 7, name));
+
+		call(0, 4, 1, 1, "hello");
+		assertEquals(0, leaving.count("modem_message"));
+	}
+}
@@ -0,0 +1,169 @@
+package net.clgd.ccemux.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import dan200.computercraft.api.filesystem.IMount;
+import dan200.computercraft.api.filesystem.IWritableMount;
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.api.peripheral.IComputerAccess;
+import net.clgd.ccemux.api.config.Group;
+import net.clgd.ccemux.config.LuaAdapter;
+import net.clgd.ccemux.plugins.builtin.peripherals.WirelessModemPeripheral;
+
+public class WirelessModemTest {
+	private static class Computer implements IComputerAccess {
+		final List<Object[]> messages = new ArrayList<>();
+
+		@Override
+		public String mount(String desiredLocation, IMount mount) {
+			return null;
+		}
+
+		@Override
+		public String mount(String desiredLocation, IMount mount, String driveName) {
+			return null;
+		}
+
+		@Override
+		public String mountWritable(String desiredLocation, IWritableMount mount) {
+			return null;
+		}
+
+		@Override
+		public String mountWritable(String desiredLocation, IWritableMount mount, String driveName) {
+			return null;
+		}
+
+		@Override
+		public void unmount(String location) {}
+
+		@Override
+		public int getID() {
+			return 0;
+		}
+
+		@Override
+		public void queueEvent(String event, Object[] arguments) {
+			if (event.equals("modem_message")) messages.add(arguments);
+		}
+
+		@Override
+		public String getAttachmentName() {
+			return "top";
+		}
+	}
+
+	private final List<WirelessModemPeripheral> modems = new ArrayList<>();
+	private final List<Computer> computers = new ArrayList<>();
+	private final List<Group> groups = new ArrayList<>();
+
+	private void configure(int index, Object... settings) throws LuaException {
+		Map<String, Object> values = new HashMap<>();
+		for (int i = 0; i < settings.length; i += 2) values.put((String) settings[i], settings[i + 1]);
+		LuaAdapter.fromLua(groups.get(index), values);
+	}
+
+	private Computer modem(int channel, Object... settings) throws LuaException {
+		WirelessModemPeripheral modem = new WirelessModemPeripheral();
+		Computer computer = new Computer();
+		Group group = new Group("modem");
+		modem.configSetup(group);
+
+		modems.add(modem);
+		computers.add(computer);
+		groups.add(group);
+
+		configure(modems.size() - 1, settings);
+		modem.attach(computer);
+		if (channel >= 0) modem.callMethod(computer, null, 0, new Object[] { channel });
+		return computer;
+	}
+
+	private void transmit(int index, int channel) throws LuaException {
+		modems.get(index).callMethod(computers.get(index), null, 4, new Object[] { channel, channel, "hello" });
+		WirelessModemPeripheral.getNetwork().deliver();
+	}
+
+	@After
+	public void detach() {
+		for (int i = 0; i < modems.size(); i++) modems.get(i).detach(computers.get(i));
+	}
+
+	@Test
+	public void testRange() throws LuaException {
+		Computer sender = modem(1);
+		Computer near = modem(1, "posX", 30.0, "posZ", 40.0);
+		Computer far = modem(1, "posX", 1000.0);
+		Computer otherChannel = modem(2, "posX", 1.0);
+		Computer otherWorld = modem(1, "world", "nether");
+
+		transmit(0, 1);
+
+		assertTrue(sender.messages.isEmpty());
+		assertEquals(1, near.messages.size());
+		assertEquals(50.0, (Double) near.messages.get(0)[4], 1e-9);
+		assertTrue(far.messages.isEmpty());
+		assertTrue(otherChannel.messages.isEmpty());
+		assertTrue(otherWorld.messages.isEmpty());
+	}
+
+	@Test
+	public void testReceiverRange() throws LuaException {
+		modem(-1);
+		Computer wide = modem(1, "posX", 500.0, "range", 600.0);
+		Computer narrow = modem(1, "posX", 500.0, "posY", 1.0);
+
+		transmit(0, 1);
+
+		assertEquals(1, wide.messages.size());
+		assertTrue(narrow.messages.isEmpty());
+	}
+
+	@Test
+	public void testInterdimensional() throws LuaException {
+		modem(-1);
+		Computer ender = modem(1, "world", "nether", "interdimensional", true);
+		Computer far = modem(1, "posX", 100000.0);
+
+		transmit(0, 1);
+
+		assertEquals(1, ender.messages.size());
+		assertEquals(4, ender.messages.get(0).length);
+		assertTrue(far.messages.isEmpty());
+	}
+
+	@Test
+	public void testMove() throws LuaException {
+		modem(-1);
+		Computer receiver = modem(1, "posX", 1000.0);
+
+		transmit(0, 1);
+		assertTrue(receiver.messages.isEmpty());
+
+		configure(1, "posX", 10.0);
+		transmit(0, 1);
+		assertEquals(1, receiver.messages.size());
+	}
+
+	@Test
+	public void testQueued() throws LuaException {
+		Computer sender = modem(-1);
+		Computer receiver = modem(1);
+
+		modems.get(0).callMethod(sender, null, 4, new Object[] { 1, 1, "hello" });
+		assertTrue(receiver.messages.isEmpty());
+		assertEquals(1, WirelessModemPeripheral.getNetwork().getQueueDepth());
+
+		WirelessModemPeripheral.getNetwork().deliver();
+		assertEquals(1, receiver.messages.size());
+		assertEquals(0, WirelessModemPeripheral.getNetwork().getQueueDepth());
+	}
+}